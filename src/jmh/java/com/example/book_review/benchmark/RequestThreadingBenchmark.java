@@ -0,0 +1,179 @@
+package com.example.book_review.benchmark;
+
+import com.example.book_review.config.ConcurrencyLimitedDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Load comparison of the two request execution modes under slow queries: a burst of requests, each doing some
+// non-database blocking work and, for a share of them, a slow query on a 5-connection pool.
+// platform: Tomcat's default 200-thread pool in front of the pool. virtual: one virtual thread per request in
+// front of ConcurrencyLimitedDataSource (the spring.threads.virtual.enabled=true setup).
+// burst measures throughput, which the pool bounds in both modes; lightRequestUnderLoad measures how long a
+// request that needs no connection waits while queries are queued on the pool.
+// The pool and queries are simulated with sleeps, so this measures scheduling and queueing only.
+// The virtual variant needs a Java 21+ JVM:
+// mvn -P benchmark verify -Djmh.args="RequestThreadingBenchmark -p threading=platform,virtual"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    private static final int POOL_SIZE = 5;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    private String threading;
+
+    @Param({"2000"})
+    private int requests;
+
+    // Percentage of requests that run a query
+    @Param({"20", "100"})
+    private int dbShare;
+
+    @Param({"20"})
+    private long queryMillis;
+
+    @Param({"10"})
+    private long ioMillis;
+
+    private ExecutorService executor;
+    private DataSource dataSource;
+
+    @Setup
+    public void setUp() throws Exception {
+        DataSource pool = new SimulatedPool(POOL_SIZE, Duration.ofSeconds(60));
+        if (threading.equals("virtual")) {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            dataSource = new ConcurrencyLimitedDataSource(pool, POOL_SIZE, Duration.ofSeconds(60));
+        } else {
+            executor = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+            dataSource = pool;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Time to serve the whole burst
+    @Benchmark
+    public int burst() throws Exception {
+        return await(submit(requests, dbShare));
+    }
+
+    // Latency of one request that never touches the database, sent while a backlog of queries is queued
+    // on the pool: with a bounded thread pool it waits for a thread behind the blocked query requests
+    @Benchmark
+    public boolean lightRequestUnderLoad(Backlog backlog) throws Exception {
+        return executor.submit(() -> handle(false)).get();
+    }
+
+    @State(Scope.Thread)
+    public static class Backlog {
+
+        private static final int QUERIES = 400;
+
+        private List<Future<Boolean>> inFlight;
+
+        @Setup(Level.Invocation)
+        public void fill(RequestThreadingBenchmark benchmark) throws InterruptedException {
+            inFlight = benchmark.submit(QUERIES, 100);
+            // Let the backlog reach the pool before the probe is sent
+            Thread.sleep(benchmark.ioMillis * 2);
+        }
+
+        @TearDown(Level.Invocation)
+        public void drain() throws Exception {
+            await(inFlight);
+        }
+    }
+
+    private List<Future<Boolean>> submit(int count, int queryShare) {
+        List<Future<Boolean>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean query = i % 100 < queryShare;
+            results.add(executor.submit(() -> handle(query)));
+        }
+        return results;
+    }
+
+    private static int await(List<Future<Boolean>> results) throws Exception {
+        int served = 0;
+        for (Future<Boolean> result : results) {
+            served += result.get() ? 1 : 0;
+        }
+        return served;
+    }
+
+    private boolean handle(boolean query) throws Exception {
+        Thread.sleep(ioMillis);
+        if (query) {
+            try (Connection connection = dataSource.getConnection()) {
+                Thread.sleep(queryMillis);
+                return !connection.isClosed();
+            }
+        }
+        return true;
+    }
+
+    // Stand-in for Hikari: a fixed number of connections, callers block until one is free or the timeout passes
+    private static class SimulatedPool extends AbstractDataSource {
+
+        private final Semaphore connections;
+        private final Duration timeout;
+
+        SimulatedPool(int size, Duration timeout) {
+            this.connections = new Semaphore(size);
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try {
+                if (!connections.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException("Connection is not available");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted", e);
+            }
+            boolean[] closed = {false};
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                connections.release();
+                            }
+                            yield null;
+                        }
+                        case "isClosed" -> closed[0];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
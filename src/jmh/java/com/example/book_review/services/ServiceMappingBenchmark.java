@@ -0,0 +1,121 @@
+package com.example.book_review.services;
+
+import com.example.book_review.dto.BookResponseDTO;
+import com.example.book_review.dto.BookSummaryDTO;
+import com.example.book_review.dto.RatingResponseDTO;
+import com.example.book_review.dto.ReviewResponseDTO;
+import com.example.book_review.models.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// CPU cost of the entity-to-DTO mapping done on every read request, over a synthetic in-memory entity graph.
+// No database is involved: all associations are plain collections, so this measures mapping only.
+// Run with: mvn -P benchmark verify -Djmh.args="ServiceMappingBenchmark -p authors=1,5"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceMappingBenchmark {
+
+    @Param({"1", "5"})
+    private int authors;
+
+    @Param({"1", "3"})
+    private int genres;
+
+    @Param({"10", "1000"})
+    private int reviews;
+
+    private BookService bookService;
+    private RatingService ratingService;
+    private ReviewService reviewService;
+
+    private Book book;
+    private Rating rating;
+    private Reviews review;
+
+    @Setup
+    public void setUp() {
+        bookService = new BookService();
+        ratingService = new RatingService();
+        reviewService = new ReviewService();
+
+        Roles role = new Roles();
+        role.setId(1);
+        role.setName("USER");
+
+        User user = new User();
+        user.setId(1);
+        user.setUsername("reader");
+        user.setEmail("reader@example.com");
+        user.setRole(role);
+
+        book = new Book();
+        book.setId(1);
+        book.setTitle("Benchmark Book");
+        book.setDescription("A book that only exists to be mapped");
+        book.setPrice(20);
+        book.setPublishedDate(LocalDate.of(2020, 1, 1));
+        book.setRatingCount(reviews);
+        book.setRatingSum(reviews * 4L);
+        book.setFourStarCount(reviews);
+
+        for (int i = 0; i < authors; i++) {
+            Author author = new Author();
+            author.setId(i + 1);
+            author.setName("Author " + i);
+            author.setNationality("Nowhere");
+            book.addAuthors(author);
+        }
+        for (int i = 0; i < genres; i++) {
+            Genre genre = new Genre();
+            genre.setId(i + 1);
+            genre.setName("Genre " + i);
+            book.addGenre(genre);
+        }
+        for (int i = 0; i < reviews; i++) {
+            Reviews r = new Reviews();
+            r.setId(i + 1);
+            r.setComment("Review " + i);
+            user.addReview(r);
+            book.addReview(r);
+        }
+
+        review = book.getReviews().get(0);
+
+        rating = new Rating();
+        rating.setId(1);
+        rating.setStars(4);
+        user.addRating(rating);
+        book.addRating(rating);
+    }
+
+    @Benchmark
+    public BookSummaryDTO mapToBookSummary() {
+        return bookService.mapToBookSummary(book);
+    }
+
+    @Benchmark
+    public BookResponseDTO mapToBookResponse() {
+        return bookService.mapToBookResponse(book);
+    }
+
+    @Benchmark
+    public RatingResponseDTO mapToRatingResponse() {
+        return ratingService.mapToRatingResponse(rating);
+    }
+
+    @Benchmark
+    public ReviewResponseDTO mapToReviewResponse() {
+        return reviewService.mapToReviewResponse(review);
+    }
+
+    @Benchmark
+    public String bookGetAuthor() {
+        return book.getAuthor();
+    }
+}
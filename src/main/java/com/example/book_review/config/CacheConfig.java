@@ -0,0 +1,32 @@
+package com.example.book_review.config;
+
+import com.example.book_review.services.CatalogCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${catalog.cache.max-size:10000}") long maxSize,
+                                     @Value("${catalog.cache.ttl:600}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                CatalogCache.BOOKS, CatalogCache.AUTHORS, CatalogCache.GENRES);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        // Puts issued inside a transaction are applied after commit
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
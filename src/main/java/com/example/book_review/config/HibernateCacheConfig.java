@@ -0,0 +1,71 @@
+package com.example.book_review.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Regions of the Hibernate second-level cache (enabled in application.properties). Size and TTL come from
+// entity.cache.max-size/ttl, overridable per region with entity.cache.regions.<region>.max-size/ttl.
+// Statistics are recorded per region (JCache MBeans) and by Hibernate (hibernate.generate_statistics).
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String ROLES = "roles";
+    public static final String ROLES_BY_NAME = "roles-by-name";
+    public static final String GENRES = "genres";
+    public static final String AUTHORS = "authors";
+
+    // Query space of the native version bumps and book counter updates on genres and authors; no entity maps to it
+    public static final String VERSIONS_SPACE = "representation_versions";
+
+    private static final List<String> REGIONS = List.of(
+            ROLES, ROLES_BY_NAME, GENRES, AUTHORS, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    // The provider's default CacheManager is one per JVM; each application context gets its own under a unique
+    // URI, so a second context (e.g. another test configuration) neither collides with nor closes these regions
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(Environment env) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("hibernate-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        long defaultMaxSize = env.getProperty("entity.cache.max-size", Long.class, 1000L);
+        long defaultTtl = env.getProperty("entity.cache.ttl", Long.class, 3600L);
+        for (String region : REGIONS) {
+            String prefix = "entity.cache.regions." + region;
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(env.getProperty(prefix + ".max-size", Long.class, defaultMaxSize)));
+            config.setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(
+                    env.getProperty(prefix + ".ttl", Long.class, defaultTtl)).toNanos()));
+            config.setStatisticsEnabled(true);
+            cacheManager.createCache(region, config);
+        }
+        // Query results are only valid against these per-table timestamps, so they are never evicted
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Every region is created above; a missing one is a misnamed region on an entity
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.book_review.config;
 
 import com.example.book_review.services.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -24,31 +28,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private JwtRevocationRegistry revocationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // When enabled, authorities come from the token's roles claim and no user lookup is made
+    @Value("${jwt.stateless-auth:false}")
+    private boolean statelessAuth;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain chain) throws ServletException, IOException {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
-
         // JWT Token is in the form "Bearer token". Remove Bearer word and get only the Token
-        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwtToken);
-            } catch (Exception e) {
-                logger.error("Unable to get JWT Token or JWT Token has expired");
-            }
-        }
+        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwtToken = requestTokenHeader.substring(7);
 
-        // Once we get the token validate it.
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // Signature, expiry and claims are checked in a single parse
+            Timer.Sample validation = Timer.start(meterRegistry);
+            JwtClaims claims = jwtUtil.parse(jwtToken).orElse(null);
+            boolean fromClaims = claims != null && useClaims(claims);
+            if (claims == null) {
+                validation.stop(meterRegistry.timer("jwt.validation", "outcome", "invalid"));
+                logger.error("Unable to get JWT Token or JWT Token has expired");
+            } else if (fromClaims && !revocationRegistry.isCurrent(claims.getUsername(), claims.getUserId(), claims.getTokenVersion())) {
+                validation.stop(meterRegistry.timer("jwt.validation", "outcome", "revoked"));
+                logger.debug("Rejecting JWT Token revoked or issued to a deleted user");
+            } else {
+                validation.stop(meterRegistry.timer("jwt.validation", "outcome", "valid"));
+                Timer.Sample resolution = Timer.start(meterRegistry);
+                UserDetails userDetails = fromClaims
+                        ? toUserDetails(claims)
+                        : this.userDetailsService.loadUserByUsername(claims.getUsername());
+                resolution.stop(meterRegistry.timer("jwt.user.resolution", "source", fromClaims ? "claims" : "lookup"));
 
-            // if token is valid configure Spring Security to manually set authentication
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken
@@ -60,4 +78,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+
+    // Stateless mode needs the roles, user id and token version claims; older tokens fall back to the user lookup
+    private boolean useClaims(JwtClaims claims) {
+        return statelessAuth && !claims.getRoles().isEmpty() && claims.getUserId() != null
+                && claims.getTokenVersion() != null;
+    }
+
+    private UserDetails toUserDetails(JwtClaims claims) {
+        return User.withUsername(claims.getUsername())
+                .password("")
+                .authorities(claims.getRoles().toArray(String[]::new))
+                .build();
+    }
 }
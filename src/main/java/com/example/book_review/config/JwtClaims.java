@@ -0,0 +1,18 @@
+package com.example.book_review.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+// Result of a successful signature and expiry check: everything the filter needs from a token
+@Getter
+@AllArgsConstructor
+public class JwtClaims {
+    private final String username;
+    private final Date expiration;
+    private final List<String> roles; // authority names as issued, e.g. ROLE_USER; empty for tokens without the claim
+    private final Long userId; // id of the user row the token was issued for; null for tokens without the claim
+    private final Integer tokenVersion; // the user's token version at issue; null for tokens without the claim
+}
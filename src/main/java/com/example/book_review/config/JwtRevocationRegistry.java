@@ -0,0 +1,75 @@
+package com.example.book_review.config;
+
+import com.example.book_review.dto.TokenVersion;
+import com.example.book_review.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// Revocation check used by stateless JWT authentication (jwt.stateless-auth=true). Every token carries the id of
+// the user row it was issued for and that row's token_version; revoking increments the version. A token is current
+// only while the username still maps to the same row at the same version, so neither a revoked token nor one issued
+// to a deleted user whose username was registered again is accepted. The column is shared by every instance and
+// survives restarts. Each instance caches the versions for jwt.revocation.cache-ttl seconds, so a revocation made
+// on another instance takes effect here within that delay.
+@Component
+public class JwtRevocationRegistry {
+
+    // Cached for users that no longer exist: every token is rejected
+    private static final TokenVersion UNKNOWN_USER = new TokenVersion(-1, -1);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Cache<String, TokenVersion> versions;
+
+    public JwtRevocationRegistry(@Value("${jwt.revocation.cache-max-size:10000}") long maxSize,
+                                 @Value("${jwt.revocation.cache-ttl:30}") long ttlSeconds) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // Reject every token issued to this user so far (role change, password change)
+    public void revoke(String username) {
+        userRepository.revokeTokens(username);
+        evict(username);
+    }
+
+    // Reject every token issued so far (e.g. a role was renamed)
+    public void revokeAll() {
+        userRepository.revokeAllTokens();
+        invalidate(versions::invalidateAll);
+    }
+
+    // Drop the cached version, e.g. once the user is deleted: the next check finds no user and rejects the token
+    public void evict(String username) {
+        invalidate(() -> versions.invalidate(username));
+    }
+
+    private void invalidate(Runnable invalidation) {
+        invalidation.run();
+        // A request racing the transaction could re-cache the old version, so invalidate again once it commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    public boolean isCurrent(String username, Long userId, Integer tokenVersion) {
+        TokenVersion current = versions.get(username,
+                name -> userRepository.findTokenVersionByUsername(name).orElse(UNKNOWN_USER));
+        return current.matches(userId, tokenVersion);
+    }
+}
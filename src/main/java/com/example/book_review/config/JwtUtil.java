@@ -3,26 +3,48 @@ package com.example.book_review.config;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeLongEnoughForSecurity}")
-    private String secret;
+    static final String ROLES_CLAIM = "roles";
+    static final String USER_ID_CLAIM = "uid";
+    static final String TOKEN_VERSION_CLAIM = "tv";
 
-    @Value("${jwt.expiration:86400}")
-    private Long expiration;
+    private final Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Key and parser are immutable and thread-safe, so build them once instead of per call
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    public JwtUtil(@Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeLongEnoughForSecurity}") String secret,
+                   @Value("${jwt.expiration:86400}") Long expiration) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    // Verify signature and expiry and read the claims, all in one parse
+    public Optional<JwtClaims> parse(String token) {
+        try {
+            return Optional.of(toJwtClaims(extractAllClaims(token)));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     public String extractUsername(String token) {
@@ -39,19 +61,31 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    @SuppressWarnings("unchecked")
+    private JwtClaims toJwtClaims(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        List<String> roleNames = roles instanceof Collection<?> collection
+                ? collection.stream().map(String::valueOf).toList()
+                : List.of();
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        return new JwtClaims(claims.getSubject(), claims.getExpiration(), roleNames,
+                userId == null ? null : userId.longValue(),
+                tokenVersion == null ? null : tokenVersion.intValue());
     }
 
-    public String generateToken(UserDetails userDetails) {
+    // The user id and token version bind the token to one user row, so revocation and re-registration of the
+    // username invalidate it (see JwtRevocationRegistry)
+    public String generateToken(UserDetails userDetails, long userId, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        claims.put(USER_ID_CLAIM, userId);
+        claims.put(TOKEN_VERSION_CLAIM, tokenVersion);
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -61,21 +95,18 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // The parser already rejects expired tokens, so a successful parse only needs the subject check
+        return parse(token)
+                .map(claims -> claims.getUsername().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return parse(token).isPresent();
     }
 }
@@ -0,0 +1,42 @@
+package com.example.book_review.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Metrics beyond what Spring Boot binds on its own (HTTP server timers, repository invocation timers, Hikari
+// pool, Spring caches, Hibernate statistics): per-request SQL statement counts and the virtual-thread
+// connection limiter. Everything is exported at /actuator/prometheus.
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    // The limiter only wraps the DataSource in virtual-thread mode (VirtualThreadConfig)
+    @Bean
+    public MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConcurrencyLimitedDataSource limiter) {
+                Gauge.builder("db.connection.limiter.available", limiter, ConcurrencyLimitedDataSource::availablePermits)
+                        .description("Free connection permits")
+                        .register(registry);
+                Gauge.builder("db.connection.limiter.waiting", limiter, ConcurrencyLimitedDataSource::queueLength)
+                        .description("Threads waiting for a connection permit")
+                        .register(registry);
+            }
+        };
+    }
+}
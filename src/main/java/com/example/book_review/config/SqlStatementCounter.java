@@ -0,0 +1,62 @@
+package com.example.book_review.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Counts the SQL statements Hibernate prepares on the current thread between begin() and end(), in total and
+// per distinct statement. The same statement prepared over and over within one request is the usual sign of
+// an N+1 access pattern. Statements issued through JdbcTemplate bypass Hibernate and are not counted.
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<Counts> current = new ThreadLocal<>();
+
+    public void begin() {
+        current.set(new Counts());
+    }
+
+    public Counts end() {
+        Counts counts = current.get();
+        current.remove();
+        return counts;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.record(sql);
+        }
+        return sql;
+    }
+
+    public static class Counts {
+
+        private final Map<String, Integer> perStatement = new HashMap<>();
+        private int total;
+        private int maxRepeats;
+        private String mostRepeated;
+
+        private void record(String sql) {
+            total++;
+            int repeats = perStatement.merge(sql, 1, Integer::sum);
+            if (repeats > maxRepeats) {
+                maxRepeats = repeats;
+                mostRepeated = sql;
+            }
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getMaxRepeats() {
+            return maxRepeats;
+        }
+
+        public String getMostRepeated() {
+            return mostRepeated;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.book_review.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Records how many SQL statements each request made (http.server.requests.statements, per endpoint) and
+// counts requests that repeated a single statement at least repeat-threshold times (db.statements.repeated),
+// the N+1 signature. Ordered ahead of the security chain so the user lookup is part of the count.
+// Requests over the statement budget are counted (db.statements.over_budget) and logged, or, with
+// budget-exceeded=fail (meant for tests), fail with an IllegalStateException.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    // Request attribute holding the number of statements the request prepared, set once it completes
+    public static final String STATEMENT_COUNT_ATTRIBUTE = StatementMetricsFilter.class.getName() + ".STATEMENT_COUNT";
+
+    private static final Logger log = LoggerFactory.getLogger(StatementMetricsFilter.class);
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${metrics.statements.repeat-threshold:5}")
+    private int repeatThreshold;
+
+    @Value("${metrics.statements.budget:25}")
+    private int budget;
+
+    // log or fail
+    @Value("${metrics.statements.budget-exceeded:log}")
+    private String budgetExceeded;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        statementCounter.begin();
+        SqlStatementCounter.Counts counts;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            counts = statementCounter.end();
+            request.setAttribute(STATEMENT_COUNT_ATTRIBUTE, counts.getTotal());
+            record(request, counts);
+        }
+        if (counts.getTotal() > budget && "fail".equals(budgetExceeded)) {
+            throw new IllegalStateException(request.getMethod() + " " + endpoint(request) + " prepared "
+                    + counts.getTotal() + " SQL statements, over the budget of " + budget);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Counts counts) {
+        String uri = endpoint(request);
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("SQL statements prepared per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(counts.getTotal());
+        if (counts.getMaxRepeats() >= repeatThreshold) {
+            Counter.builder("db.statements.repeated")
+                    .description("Requests that prepared one statement repeat-threshold times or more (likely N+1)")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.debug("{} {} prepared the same statement {} times: {}", request.getMethod(), uri,
+                    counts.getMaxRepeats(), counts.getMostRepeated());
+        }
+        if (counts.getTotal() > budget) {
+            Counter.builder("db.statements.over_budget")
+                    .description("Requests that prepared more SQL statements than the budget")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {} prepared {} SQL statements, over the budget of {} (most repeated, {} times: {})",
+                    request.getMethod(), uri, counts.getTotal(), budget, counts.getMaxRepeats(),
+                    counts.getMostRepeated());
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+}
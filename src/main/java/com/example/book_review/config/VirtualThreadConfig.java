@@ -0,0 +1,41 @@
+package com.example.book_review.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Opt-in virtual-thread mode (spring.threads.virtual.enabled=true, Java 21+ runtime). Spring Boot then runs
+// Tomcat requests and the application task executor (async MVC work such as the catalog export) on virtual
+// threads. Virtual threads are cheap enough that every in-flight request can reach for a connection at once,
+// so the pooled DataSource is wrapped in a limiter with one permit per Hikari connection.
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public static BeanPostProcessor databaseConcurrencyLimiter(
+            @Value("${database.concurrency.acquire-timeout:30s}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    int permits = hikari.getMaximumPoolSize();
+                    log.info("Virtual threads enabled: limiting '{}' to {} concurrent connections", beanName, permits);
+                    return new ConcurrencyLimitedDataSource((DataSource) bean, permits, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
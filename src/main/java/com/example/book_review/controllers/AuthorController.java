@@ -8,10 +8,13 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,6 +23,9 @@ import java.util.List;
 @Tag(name = "Author Management", description = "APIs for managing authors")
 public class AuthorController {
 
+    // The unpaged list endpoints answer with the whole list, as before paging; each has a /paged variant
+    private static final Sort BY_TITLE = Sort.by("title");
+
     @Autowired
     private AuthorService authorService;
 
@@ -32,8 +38,12 @@ public class AuthorController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Get author by ID")
-    public ResponseEntity<AuthorResponseDTO> getAuthorById(@PathVariable Long id) {
-        AuthorResponseDTO author = authorService.getAuthorById(id);
+    public ResponseEntity<AuthorResponseDTO> getAuthorById(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = authorService.getAuthorVersion(id);
+        if (request.checkNotModified(version.toETag("author-" + id), version.getLastModifiedMillis())) {
+            return null;
+        }
+        AuthorResponseDTO author = authorService.getAuthorById(id, version.getVersion());
         return ResponseEntity.ok(author);
     }
 
@@ -73,7 +83,16 @@ public class AuthorController {
     @GetMapping("/{id}/books")
     @Operation(summary = "Get books by author")
     public ResponseEntity<List<BookSummaryDTO>> getAuthorBooks(@PathVariable Long id) {
-        List<BookSummaryDTO> books = authorService.getAuthorBooks(id);
+        Page<BookSummaryDTO> books = authorService.getAuthorBooks(id, Pageable.unpaged(BY_TITLE));
+        return ResponseEntity.ok(books.getContent());
+    }
+
+    @GetMapping("/{id}/books/paged")
+    @Operation(summary = "Get books by author, one page at a time")
+    public ResponseEntity<Page<BookSummaryDTO>> getAuthorBooksPaged(
+            @PathVariable Long id,
+            @PageableDefault(sort = "title") Pageable pageable) {
+        Page<BookSummaryDTO> books = authorService.getAuthorBooks(id, pageable);
         return ResponseEntity.ok(books);
     }
 }
@@ -1,18 +1,28 @@
 package com.example.book_review.controllers;
 
 import com.example.book_review.dto.*;
+import com.example.book_review.services.BookImportService;
 import com.example.book_review.services.BookService;
+import com.example.book_review.services.LeaderboardService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -20,9 +30,19 @@ import java.util.List;
 @Tag(name = "Book Management", description = "APIs for managing books")
 public class BookController {
 
+    // The unpaged list endpoints answer with the whole list, as before paging; each has a /paged variant
+    private static final Sort BY_TITLE = Sort.by("title");
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
     @GetMapping
     @Operation(summary = "Get all books")
     public ResponseEntity<Page<BookSummaryDTO>> getAllBooks(Pageable pageable) {
@@ -32,8 +52,12 @@ public class BookController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Get book by ID")
-    public ResponseEntity<BookResponseDTO> getBookById(@PathVariable Long id) {
-        BookResponseDTO book = bookService.getBookById(id);
+    public ResponseEntity<BookResponseDTO> getBookById(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = bookService.getBookVersion(id);
+        if (request.checkNotModified(version.toETag("book-" + id), version.getLastModifiedMillis())) {
+            return null;
+        }
+        BookResponseDTO book = bookService.getBookById(id, version.getVersion());
         return ResponseEntity.ok(book);
     }
 
@@ -63,38 +87,135 @@ public class BookController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/rating-stats/rebuild")
+    @Operation(summary = "Rebuild rating aggregates of all books")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> rebuildRatingStats() {
+        int updated = bookService.rebuildRatingStats();
+        return ResponseEntity.ok(updated);
+    }
+
+    @PostMapping("/book-counts/rebuild")
+    @Operation(summary = "Rebuild book counters of all authors and genres")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> rebuildBookCounts() {
+        int updated = bookService.rebuildBookCounts();
+        return ResponseEntity.ok(updated);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export the whole catalog as NDJSON, one book per line")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = bookService::exportCatalog;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk import books from CSV or NDJSON, committed in chunks")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BookImportReportDTO> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) Integer chunkSize,
+            InputStream body) throws IOException {
+        BookImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? BookImportService.Format.NDJSON
+                : BookImportService.Format.CSV;
+        BookImportReportDTO report = bookImportService.importBooks(body, format, chunkSize);
+        return ResponseEntity.ok(report);
+    }
+
     @GetMapping("/search")
-    @Operation(summary = "Search books by title")
-    public ResponseEntity<List<BookSummaryDTO>> searchBooksByTitle(@RequestParam String title) {
-        List<BookSummaryDTO> books = bookService.searchBooksByTitle(title);
+    @Operation(summary = "Search books by title, author or description")
+    public ResponseEntity<Page<BookSummaryDTO>> searchBooks(@RequestParam String query, Pageable pageable) {
+        Page<BookSummaryDTO> books = bookService.searchBooks(query, pageable);
         return ResponseEntity.ok(books);
     }
 
+    @GetMapping("/leaderboards/{board}")
+    @Operation(summary = "Get a leaderboard (top-rated, most-reviewed or trending), optionally for one genre")
+    public ResponseEntity<LeaderboardDTO> getLeaderboard(
+            @PathVariable String board,
+            @RequestParam(required = false) Long genreId,
+            @RequestParam(required = false) Integer limit) {
+        LeaderboardDTO leaderboard = leaderboardService.getLeaderboard(
+                LeaderboardService.Board.fromPath(board), genreId, limit);
+        return ResponseEntity.ok(leaderboard);
+    }
+
     @GetMapping("/author/{authorId}")
     @Operation(summary = "Get books by author")
     public ResponseEntity<List<BookSummaryDTO>> getBooksByAuthor(@PathVariable Long authorId) {
-        List<BookSummaryDTO> books = bookService.getBooksByAuthor(authorId);
+        Page<BookSummaryDTO> books = bookService.getBooksByAuthor(authorId, Pageable.unpaged(BY_TITLE));
+        return ResponseEntity.ok(books.getContent());
+    }
+
+    @GetMapping("/author/{authorId}/paged")
+    @Operation(summary = "Get books by author, one page at a time")
+    public ResponseEntity<Page<BookSummaryDTO>> getBooksByAuthorPaged(
+            @PathVariable Long authorId,
+            @PageableDefault(sort = "title") Pageable pageable) {
+        Page<BookSummaryDTO> books = bookService.getBooksByAuthor(authorId, pageable);
         return ResponseEntity.ok(books);
     }
 
     @GetMapping("/genre/{genreId}")
     @Operation(summary = "Get books by genre")
     public ResponseEntity<List<BookSummaryDTO>> getBooksByGenre(@PathVariable Long genreId) {
-        List<BookSummaryDTO> books = bookService.getBooksByGenre(genreId);
+        Page<BookSummaryDTO> books = bookService.getBooksByGenre(genreId, Pageable.unpaged(BY_TITLE));
+        return ResponseEntity.ok(books.getContent());
+    }
+
+    @GetMapping("/genre/{genreId}/paged")
+    @Operation(summary = "Get books by genre, one page at a time")
+    public ResponseEntity<Page<BookSummaryDTO>> getBooksByGenrePaged(
+            @PathVariable Long genreId,
+            @PageableDefault(sort = "title") Pageable pageable) {
+        Page<BookSummaryDTO> books = bookService.getBooksByGenre(genreId, pageable);
         return ResponseEntity.ok(books);
     }
 
     @GetMapping("/{id}/reviews")
     @Operation(summary = "Get reviews for a book")
     public ResponseEntity<List<ReviewSummaryDTO>> getBookReviews(@PathVariable Long id) {
-        List<ReviewSummaryDTO> reviews = bookService.getBookReviews(id);
+        Page<ReviewSummaryDTO> reviews = bookService.getBookReviews(id, Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(reviews.getContent());
+    }
+
+    @GetMapping("/{id}/reviews/paged")
+    @Operation(summary = "Get reviews for a book, one page at a time")
+    public ResponseEntity<Page<ReviewSummaryDTO>> getBookReviewsPaged(
+            @PathVariable Long id,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<ReviewSummaryDTO> reviews = bookService.getBookReviews(id, pageable);
         return ResponseEntity.ok(reviews);
     }
 
     @GetMapping("/{id}/ratings")
     @Operation(summary = "Get ratings for a book")
-    public ResponseEntity<List<RatingSummaryDTO>> getBookRatings(@PathVariable Long id) {
-        List<RatingSummaryDTO> ratings = bookService.getBookRatings(id);
+    public ResponseEntity<List<RatingSummaryDTO>> getBookRatings(@PathVariable Long id, WebRequest request) {
+        // Every rating change bumps the book's version, so it also validates the rating list
+        ResourceVersion version = bookService.getBookVersion(id);
+        if (request.checkNotModified(version.toETag("book-ratings-" + id), version.getLastModifiedMillis())) {
+            return null;
+        }
+        Page<RatingSummaryDTO> ratings = bookService.getBookRatings(id, Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(ratings.getContent());
+    }
+
+    @GetMapping("/{id}/ratings/paged")
+    @Operation(summary = "Get ratings for a book, one page at a time")
+    public ResponseEntity<Page<RatingSummaryDTO>> getBookRatingsPaged(
+            @PathVariable Long id,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            WebRequest request) {
+        // Every rating change bumps the book's version, so it also validates each page of the rating list
+        ResourceVersion version = bookService.getBookVersion(id);
+        String eTag = version.toETag("book-ratings-" + id + "-" + ResourceVersion.pageKey(pageable));
+        if (request.checkNotModified(eTag, version.getLastModifiedMillis())) {
+            return null;
+        }
+        Page<RatingSummaryDTO> ratings = bookService.getBookRatings(id, pageable);
         return ResponseEntity.ok(ratings);
     }
 
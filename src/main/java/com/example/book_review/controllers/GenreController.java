@@ -8,10 +8,13 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,20 +23,33 @@ import java.util.List;
 @Tag(name = "Genre Management", description = "APIs for managing genres")
 public class GenreController {
 
+    // The unpaged list endpoints answer with the whole list, as before paging; each has a /paged variant
+    private static final Sort BY_TITLE = Sort.by("title");
+
     @Autowired
     private GenreService genreService;
 
     @GetMapping
     @Operation(summary = "Get all genres")
-    public ResponseEntity<Page<GenreSummaryDTO>> getAllGenres(Pageable pageable) {
+    public ResponseEntity<Page<GenreSummaryDTO>> getAllGenres(Pageable pageable, WebRequest request) {
+        // The page requested is part of the tag, since every page shares the collection's version
+        ResourceVersion version = genreService.getGenresVersion();
+        String eTag = version.toETag("genres-" + ResourceVersion.pageKey(pageable));
+        if (request.checkNotModified(eTag, version.getLastModifiedMillis())) {
+            return null;
+        }
         Page<GenreSummaryDTO> genres = genreService.getAllGenres(pageable);
         return ResponseEntity.ok(genres);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get genre by ID")
-    public ResponseEntity<GenreResponseDTO> getGenreById(@PathVariable Long id) {
-        GenreResponseDTO genre = genreService.getGenreById(id);
+    public ResponseEntity<GenreResponseDTO> getGenreById(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = genreService.getGenreVersion(id);
+        if (request.checkNotModified(version.toETag("genre-" + id), version.getLastModifiedMillis())) {
+            return null;
+        }
+        GenreResponseDTO genre = genreService.getGenreById(id, version.getVersion());
         return ResponseEntity.ok(genre);
     }
 
@@ -73,7 +89,16 @@ public class GenreController {
     @GetMapping("/{id}/books")
     @Operation(summary = "Get books by genre")
     public ResponseEntity<List<BookSummaryDTO>> getGenreBooks(@PathVariable Long id) {
-        List<BookSummaryDTO> books = genreService.getGenreBooks(id);
+        Page<BookSummaryDTO> books = genreService.getGenreBooks(id, Pageable.unpaged(BY_TITLE));
+        return ResponseEntity.ok(books.getContent());
+    }
+
+    @GetMapping("/{id}/books/paged")
+    @Operation(summary = "Get books by genre, one page at a time")
+    public ResponseEntity<Page<BookSummaryDTO>> getGenreBooksPaged(
+            @PathVariable Long id,
+            @PageableDefault(sort = "title") Pageable pageable) {
+        Page<BookSummaryDTO> books = genreService.getGenreBooks(id, pageable);
         return ResponseEntity.ok(books);
     }
 }
@@ -2,17 +2,22 @@ package com.example.book_review.controllers;
 
 import com.example.book_review.dto.*;
 import com.example.book_review.services.RatingService;
+import com.example.book_review.services.RatingWriteBehindQueue;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
 
@@ -21,9 +26,16 @@ import java.util.List;
 @Tag(name = "Rating Management", description = "APIs for managing book ratings")
 public class RatingController {
 
+    // The unpaged list endpoints answer with the whole list, as before paging; each has a /paged variant
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
     @Autowired
     private RatingService ratingService;
 
+    // Present only with ratings.write-behind.enabled=true
+    @Autowired(required = false)
+    private RatingWriteBehindQueue ratingWriteBehindQueue;
+
     @GetMapping
     @Operation(summary = "Get all ratings")
     public ResponseEntity<Page<RatingSummaryDTO>> getAllRatings(Pageable pageable) {
@@ -31,6 +43,15 @@ public class RatingController {
         return ResponseEntity.ok(ratings);
     }
 
+    @GetMapping("/feed")
+    @Operation(summary = "Get ratings newest first, paginated by cursor")
+    public ResponseEntity<CursorPage<RatingSummaryDTO>> getRatingFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<RatingSummaryDTO> ratings = ratingService.getRatingFeed(cursor, size);
+        return ResponseEntity.ok(ratings);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get rating by ID")
     public ResponseEntity<RatingResponseDTO> getRatingById(@PathVariable Long id) {
@@ -39,11 +60,21 @@ public class RatingController {
     }
 
     @PostMapping
-    @Operation(summary = "Create a new rating")
+    @Operation(summary = "Create a new rating (202 Accepted when ratings are written behind)")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<RatingResponseDTO> createRating(
             @Valid @RequestBody RatingCreateUpdateDTO ratingDTO,
             Authentication authentication) {
+        if (ratingWriteBehindQueue != null) {
+            if (!ratingWriteBehindQueue.accept(ratingDTO, authentication.getName())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+            }
+            // Queued: the stored rating will be readable at the caller's rating for the book
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                            .path("/api/ratings/book/{bookId}/user").buildAndExpand(ratingDTO.getBookId()).toUri())
+                    .build();
+        }
         RatingResponseDTO rating = ratingService.createRating(ratingDTO, authentication.getName());
         return new ResponseEntity<>(rating, HttpStatus.CREATED);
     }
@@ -70,7 +101,16 @@ public class RatingController {
     @GetMapping("/book/{bookId}")
     @Operation(summary = "Get ratings by book")
     public ResponseEntity<List<RatingSummaryDTO>> getRatingsByBook(@PathVariable Long bookId) {
-        List<RatingSummaryDTO> ratings = ratingService.getRatingsByBook(bookId);
+        Page<RatingSummaryDTO> ratings = ratingService.getRatingsByBook(bookId, Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(ratings.getContent());
+    }
+
+    @GetMapping("/book/{bookId}/paged")
+    @Operation(summary = "Get ratings by book, one page at a time")
+    public ResponseEntity<Page<RatingSummaryDTO>> getRatingsByBookPaged(
+            @PathVariable Long bookId,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<RatingSummaryDTO> ratings = ratingService.getRatingsByBook(bookId, pageable);
         return ResponseEntity.ok(ratings);
     }
 
@@ -84,7 +124,16 @@ public class RatingController {
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get ratings by user")
     public ResponseEntity<List<RatingSummaryDTO>> getRatingsByUser(@PathVariable Long userId) {
-        List<RatingSummaryDTO> ratings = ratingService.getRatingsByUser(userId);
+        Page<RatingSummaryDTO> ratings = ratingService.getRatingsByUser(userId, Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(ratings.getContent());
+    }
+
+    @GetMapping("/user/{userId}/paged")
+    @Operation(summary = "Get ratings by user, one page at a time")
+    public ResponseEntity<Page<RatingSummaryDTO>> getRatingsByUserPaged(
+            @PathVariable Long userId,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<RatingSummaryDTO> ratings = ratingService.getRatingsByUser(userId, pageable);
         return ResponseEntity.ok(ratings);
     }
 
@@ -92,7 +141,18 @@ public class RatingController {
     @Operation(summary = "Get current user's ratings")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<List<RatingSummaryDTO>> getCurrentUserRatings(Authentication authentication) {
-        List<RatingSummaryDTO> ratings = ratingService.getRatingsByUsername(authentication.getName());
+        Page<RatingSummaryDTO> ratings = ratingService.getRatingsByUsername(authentication.getName(),
+                Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(ratings.getContent());
+    }
+
+    @GetMapping("/my-ratings/paged")
+    @Operation(summary = "Get current user's ratings, one page at a time")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<Page<RatingSummaryDTO>> getCurrentUserRatingsPaged(
+            Authentication authentication,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<RatingSummaryDTO> ratings = ratingService.getRatingsByUsername(authentication.getName(), pageable);
         return ResponseEntity.ok(ratings);
     }
 
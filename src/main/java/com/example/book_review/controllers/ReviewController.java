@@ -8,6 +8,8 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,6 +23,9 @@ import java.util.List;
 @Tag(name = "Review Management", description = "APIs for managing book reviews")
 public class ReviewController {
 
+    // The unpaged list endpoints answer with the whole list, as before paging; each has a /paged variant
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
     @Autowired
     private ReviewService reviewService;
 
@@ -31,6 +36,15 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
 
+    @GetMapping("/feed")
+    @Operation(summary = "Get reviews newest first, paginated by cursor")
+    public ResponseEntity<CursorPage<ReviewSummaryDTO>> getReviewFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ReviewSummaryDTO> reviews = reviewService.getReviewFeed(cursor, size);
+        return ResponseEntity.ok(reviews);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get review by ID")
     public ResponseEntity<ReviewResponseDTO> getReviewById(@PathVariable Long id) {
@@ -70,14 +84,32 @@ public class ReviewController {
     @GetMapping("/book/{bookId}")
     @Operation(summary = "Get reviews by book")
     public ResponseEntity<List<ReviewSummaryDTO>> getReviewsByBook(@PathVariable Long bookId) {
-        List<ReviewSummaryDTO> reviews = reviewService.getReviewsByBook(bookId);
+        Page<ReviewSummaryDTO> reviews = reviewService.getReviewsByBook(bookId, Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(reviews.getContent());
+    }
+
+    @GetMapping("/book/{bookId}/paged")
+    @Operation(summary = "Get reviews by book, one page at a time")
+    public ResponseEntity<Page<ReviewSummaryDTO>> getReviewsByBookPaged(
+            @PathVariable Long bookId,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<ReviewSummaryDTO> reviews = reviewService.getReviewsByBook(bookId, pageable);
         return ResponseEntity.ok(reviews);
     }
 
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get reviews by user")
     public ResponseEntity<List<ReviewSummaryDTO>> getReviewsByUser(@PathVariable Long userId) {
-        List<ReviewSummaryDTO> reviews = reviewService.getReviewsByUser(userId);
+        Page<ReviewSummaryDTO> reviews = reviewService.getReviewsByUser(userId, Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(reviews.getContent());
+    }
+
+    @GetMapping("/user/{userId}/paged")
+    @Operation(summary = "Get reviews by user, one page at a time")
+    public ResponseEntity<Page<ReviewSummaryDTO>> getReviewsByUserPaged(
+            @PathVariable Long userId,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<ReviewSummaryDTO> reviews = reviewService.getReviewsByUser(userId, pageable);
         return ResponseEntity.ok(reviews);
     }
 
@@ -85,14 +117,25 @@ public class ReviewController {
     @Operation(summary = "Get current user's reviews")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<List<ReviewSummaryDTO>> getCurrentUserReviews(Authentication authentication) {
-        List<ReviewSummaryDTO> reviews = reviewService.getReviewsByUsername(authentication.getName());
+        Page<ReviewSummaryDTO> reviews = reviewService.getReviewsByUsername(authentication.getName(),
+                Pageable.unpaged(NEWEST_FIRST));
+        return ResponseEntity.ok(reviews.getContent());
+    }
+
+    @GetMapping("/my-reviews/paged")
+    @Operation(summary = "Get current user's reviews, one page at a time")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<Page<ReviewSummaryDTO>> getCurrentUserReviewsPaged(
+            Authentication authentication,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<ReviewSummaryDTO> reviews = reviewService.getReviewsByUsername(authentication.getName(), pageable);
         return ResponseEntity.ok(reviews);
     }
 
     @GetMapping("/search")
     @Operation(summary = "Search reviews by content")
-    public ResponseEntity<List<ReviewSummaryDTO>> searchReviews(@RequestParam String query) {
-        List<ReviewSummaryDTO> reviews = reviewService.searchReviews(query);
+    public ResponseEntity<Page<ReviewSummaryDTO>> searchReviews(@RequestParam String query, Pageable pageable) {
+        Page<ReviewSummaryDTO> reviews = reviewService.searchReviews(query, pageable);
         return ResponseEntity.ok(reviews);
     }
 }
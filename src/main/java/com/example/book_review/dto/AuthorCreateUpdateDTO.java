@@ -20,6 +20,6 @@ public class AuthorCreateUpdateDTO {
     @NotBlank(message = "Author nationality is required")
     private String nationality;
 
-    private List<Integer> bookIds; // Optional for linking existing books
+    private List<Long> bookIds; // Optional for linking existing books
 }
 
@@ -6,7 +6,7 @@ import java.util.List;
 @Data
 // For responses
 public class AuthorResponseDTO {
-    private int id;
+    private long id;
     private String name;
     private String bio;
     private String nationality;
@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 // For lists/references
 public class AuthorSummaryDTO {
-    private int id;
+    private long id;
     private String name;
     private String nationality;
 }
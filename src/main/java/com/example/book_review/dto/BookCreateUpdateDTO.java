@@ -28,6 +28,6 @@ public class BookCreateUpdateDTO {
     @PastOrPresent(message = "Published date must be past or today")
     private LocalDate publishedDate;
 
-    private List<Integer> genreIds;
-    private List<Integer> authorIds;
+    private List<Long> genreIds;
+    private List<Long> authorIds;
 }
\ No newline at end of file
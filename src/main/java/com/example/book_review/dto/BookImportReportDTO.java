@@ -0,0 +1,40 @@
+package com.example.book_review.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of a bulk import: totals plus one entry per committed (or rolled back) chunk
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportReportDTO {
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    private List<Chunk> chunks = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chunk {
+        private int chunk;
+        private long firstRow;
+        private long lastRow;
+        private int imported;
+        private boolean committed;
+        private List<RowError> errors = new ArrayList<>();
+    }
+
+    // row is the 1-based data row number (header excluded); 0 when the error concerns the whole chunk
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
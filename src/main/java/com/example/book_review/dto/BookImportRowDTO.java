@@ -0,0 +1,36 @@
+package com.example.book_review.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// One book of a bulk import. Authors and genres are referenced by name (case-insensitive);
+// in CSV they are ';'-separated within their column.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRowDTO {
+    @NotBlank(message = "Title can't be blank")
+    private String title;
+
+    @NotBlank(message = "Description can't be blank")
+    private String description;
+
+    @NotNull(message = "Price is required")
+    @Positive(message = "Price must be positive")
+    private Integer price;
+
+    @NotNull(message = "Published date is required")
+    @PastOrPresent(message = "Published date must be past or today")
+    private LocalDate publishedDate;
+
+    private List<String> authors;
+    private List<String> genres;
+}
@@ -6,12 +6,13 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookResponseDTO {
-    private int id;
+    private long id;
     private String title;
     private String description;
     private int price;
@@ -19,5 +20,7 @@ public class BookResponseDTO {
     private List<GenreSummaryDTO> genres;
     private List<AuthorSummaryDTO> authors;
     private double averageRating;
+    private long totalRatings;
+    private Map<Integer, Long> ratingDistribution; // stars (1-5) -> number of ratings
     private int totalReviews;
 }
\ No newline at end of file
@@ -12,15 +12,16 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookSummaryDTO {
-    private int id;
+    private long id;
     private String title;
     private String author; // Comma-separated author names
     private Integer price;
     private LocalDate publishedDate;
     private Double averageRating;
+    private Long totalRatings;
 
     // Constructor for basic book info (used in reviews/ratings)
-    public BookSummaryDTO(int id, String title, String author) {
+    public BookSummaryDTO(long id, String title, String author) {
         this.id = id;
         this.title = title;
         this.author = author;
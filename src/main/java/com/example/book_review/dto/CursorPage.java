@@ -0,0 +1,17 @@
+package com.example.book_review.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One slice of a keyset-paginated feed. Pass nextCursor back as ?cursor= to get the following slice;
+// it is null on the last slice. No total count is computed.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+}
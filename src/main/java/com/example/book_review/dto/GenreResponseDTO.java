@@ -11,7 +11,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class GenreResponseDTO {
-    private int id;
+    private long id;
     private String name;
     private String description;
     private List<BookSummaryDTO> books;
@@ -9,6 +9,6 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class GenreSummaryDTO {
-    private int id;
+    private long id;
     private String name;
 }
@@ -0,0 +1,27 @@
+package com.example.book_review.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardDTO {
+    private String board;
+    private Long genreId; // null for the catalog-wide board
+    private LocalDateTime refreshedAt;
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private int rank;
+        private double score;
+        private BookSummaryDTO book;
+    }
+}
@@ -16,6 +16,6 @@ public class RatingCreateUpdateDTO {
     private int stars;
 
     @NotNull(message = "Book ID is required")
-    private int bookId;
+    private long bookId;
 
 }
\ No newline at end of file
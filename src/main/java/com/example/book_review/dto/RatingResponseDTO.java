@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class RatingResponseDTO {
-    private int id;
+    private long id;
     private int stars;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -0,0 +1,43 @@
+package com.example.book_review.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Validators for conditional GETs, read straight from the version columns without loading the entity graph.
+// For a single row count is 1; for a collection version is the sum of the row versions and lastModified the latest.
+@Getter
+@AllArgsConstructor
+public class ResourceVersion {
+    private long count;
+    private long version;
+    private LocalDateTime lastModified;
+
+    public ResourceVersion(long version, LocalDateTime lastModified) {
+        this(1, version, lastModified);
+    }
+
+    // Weak: equal versions give equivalent JSON, not byte-identical JSON (set-backed lists have no fixed order)
+    public String toETag(String resource) {
+        return "W/\"" + resource + "-" + count + "-" + version + "\"";
+    }
+
+    // Identifies the requested page within a paged collection that shares one version
+    public static String pageKey(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return "all";
+        }
+        return pageable.getPageNumber() + "-" + pageable.getPageSize() + "-"
+                + Integer.toHexString(pageable.getSort().toString().hashCode());
+    }
+
+    public long getLastModifiedMillis() {
+        if (lastModified == null) {
+            return -1;
+        }
+        return lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
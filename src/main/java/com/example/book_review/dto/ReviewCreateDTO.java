@@ -16,7 +16,7 @@ public class ReviewCreateDTO {
 
     @NotNull(message = "Book ID is required")
     @Positive(message = "Book ID must be positive")
-    private int bookId;
+    private long bookId;
 
     // No userId - get from authentication context
     // No createdAt - auto-generated
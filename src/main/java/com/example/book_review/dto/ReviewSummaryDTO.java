@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ReviewSummaryDTO {
-    private int id;
+    private long id;
     private String comment;
     private LocalDateTime createdAt;
     private String username;
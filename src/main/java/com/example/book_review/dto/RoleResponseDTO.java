@@ -11,7 +11,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class RoleResponseDTO {
-    private int id;
+    private long id;
     private String name;
     private String description;
 }
\ No newline at end of file
@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class RoleSummaryDTO {
-    private int id;
+    private long id;
     private String name;
     // Used in UserResponseDTO to show user's roles
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.book_review.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Identity a JWT is bound to in stateless mode: the user row it was issued for and that row's token version
+@Getter
+@AllArgsConstructor
+public class TokenVersion {
+    private long userId;
+    private int version;
+
+    public boolean matches(Long tokenUserId, Integer tokenVersion) {
+        return tokenUserId != null && tokenUserId == userId && tokenVersion != null && tokenVersion == version;
+    }
+}
@@ -11,7 +11,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserResponseDTO {
-    private int id;
+    private long id;
     private String username;
     private String email;
     private LocalDateTime createdAt;
@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserSummaryDTO {
-    private int id;
+    private long id;
     private String username;
     // Used in reviews, ratings, etc.
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.example.book_review.models;
 
+import com.example.book_review.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -16,10 +21,19 @@ import java.util.Set;
 @Getter
 @Setter
 @Table(name="author")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.AUTHORS)
+// Fetch plan of AuthorResponseDTO: the books and each book's authors (for the joined author names)
+@NamedEntityGraph(name = Author.DETAIL_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "books", subgraph = "books"),
+        subgraphs = @NamedSubgraph(name = "books", attributeNodes = @NamedAttributeNode("authors")))
 public class Author {
+    public static final String DETAIL_GRAPH = "Author.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private int id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
+    private long id;
 
     @NotBlank(message = "Author's name cannot be blank")
     private String name;
@@ -30,16 +44,42 @@ public class Author {
     @NotBlank(message="Author's nationality cannot be blank")
     private String nationality;
 
+    // Representation version behind the ETag/Last-Modified validators, bumped by CatalogCache. The bump
+    // bypasses the second-level cache, so read both columns with findVersionById, not from the entity
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long version;
+
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime lastModified;
+
+    @PrePersist
+    public void onCreate() {
+        this.lastModified = LocalDateTime.now();
+    }
+
+    // Number of linked books, adjusted in place by BookCounters whenever a link is added or removed and kept in
+    // step on loaded entities by the link helpers. Never written through the entity, so concurrent link changes
+    // cannot overwrite each other. Indexed (schema.sql) for the most-books orderings
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long bookCount;
+
     @ManyToMany(mappedBy = "authors")
     private Set<Book> books= new HashSet<>();
 
     public void addBooks(Book book){
-        books.add(book);
+        if (books.add(book)) {
+            bookCount++;
+        }
         book.getAuthors().add(this);
     }
 
     public void removeBooks(Book book){
-        books.remove(book);
+        if (books.remove(book)) {
+            bookCount--;
+        }
         book.getAuthors().remove(this);
     }
 
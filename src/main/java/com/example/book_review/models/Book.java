@@ -8,11 +8,17 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -22,10 +28,21 @@ import java.util.stream.Collectors;
 @Setter
 @Entity
 @Table(name="book")
+// Fetch plans for BookRepository finders: summary carries the author names, detail everything
+// BookResponseDTO embeds except the review count (reviews are subselect-fetched)
+@NamedEntityGraph(name = Book.SUMMARY_GRAPH, attributeNodes = @NamedAttributeNode("authors"))
+@NamedEntityGraph(name = Book.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("authors"),
+        @NamedAttributeNode("genres")
+})
 public class Book {
+    public static final String SUMMARY_GRAPH = "Book.summary";
+    public static final String DETAIL_GRAPH = "Book.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private int id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
+    private long id;
 
     @NotBlank(message = "Title can't be blank")
     private String title;
@@ -39,7 +56,54 @@ public class Book {
     @PastOrPresent(message = "Dates should be past or present")
     private LocalDate publishedDate;
 
+    // Denormalized rating aggregate, maintained by RatingService through BookRepository.adjustRatingStats.
+    // Never written through the entity so a stale Book instance cannot overwrite concurrent increments.
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long ratingCount;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long ratingSum;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long oneStarCount;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long twoStarCount;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long threeStarCount;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long fourStarCount;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long fiveStarCount;
+
+    // Representation version behind the ETag/Last-Modified validators. Bumped by CatalogCache whenever the
+    // book response changes (own fields, links, linked author/genre names, ratings, reviews), never through the entity.
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long version;
+
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime lastModified;
+
+    @PrePersist
+    public void onCreate() {
+        this.lastModified = LocalDateTime.now();
+    }
+
+    // Subselect: touching one book's reviews loads them for every book of the query that loaded it
     @OneToMany(mappedBy="book",fetch = FetchType.LAZY,cascade = CascadeType.ALL)
+    @Fetch(FetchMode.SUBSELECT)
     private List<Reviews> reviews=new ArrayList<>();
 
     public void addReview(Reviews review){
@@ -52,6 +116,7 @@ public class Book {
     }
 
     @OneToMany(mappedBy = "book", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Fetch(FetchMode.SUBSELECT)
     private List<Rating> ratings=new ArrayList<>();
 
     public void addRating(Rating rating){
@@ -72,13 +137,18 @@ public class Book {
     )
     private Set<Genre> genres=new HashSet<>();
 
+    // The genre/author side keeps its in-memory bookCount in step; BookCounters adjusts the column
     public void addGenre(Genre genre){
         genres.add(genre);
-        genre.getBooks().add(this);
+        if (genre.getBooks().add(this)) {
+            genre.setBookCount(genre.getBookCount() + 1);
+        }
     }
     public void removeGenre(Genre genre){
         genres.remove(genre);
-        genre.getBooks().remove(this);
+        if (genre.getBooks().remove(this)) {
+            genre.setBookCount(genre.getBookCount() - 1);
+        }
     }
     public void clearGenres() {
         for (Genre genre : new HashSet<>(genres)) {
@@ -96,12 +166,16 @@ public class Book {
 
     public void addAuthors(Author author){
         authors.add(author);
-        author.getBooks().add(this);
+        if (author.getBooks().add(this)) {
+            author.setBookCount(author.getBookCount() + 1);
+        }
     }
 
     public void removeAuthors(Author author){
         authors.remove(author);
-        author.getBooks().remove(this);
+        if (author.getBooks().remove(this)) {
+            author.setBookCount(author.getBookCount() - 1);
+        }
     }
 
     public void clearAuthors(){
@@ -110,6 +184,22 @@ public class Book {
         }
     }
 
+    // Helper method to get the average rating from the aggregate columns
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    // Helper method to get the per-star histogram, keyed 1..5
+    public Map<Integer, Long> getRatingDistribution() {
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        distribution.put(1, oneStarCount);
+        distribution.put(2, twoStarCount);
+        distribution.put(3, threeStarCount);
+        distribution.put(4, fourStarCount);
+        distribution.put(5, fiveStarCount);
+        return distribution;
+    }
+
     // Helper method to get author names as a comma-separated string
     public String getAuthor() {
         if (authors == null || authors.isEmpty()) {
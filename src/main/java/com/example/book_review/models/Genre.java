@@ -1,12 +1,17 @@
 package com.example.book_review.models;
 
+import com.example.book_review.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -16,10 +21,16 @@ import java.util.Set;
 @Setter
 @Getter
 @Table(name="genre")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.GENRES)
+@NamedEntityGraph(name = Genre.BOOKS_GRAPH, attributeNodes = @NamedAttributeNode("books"))
 public class Genre {
+    public static final String BOOKS_GRAPH = "Genre.books";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private int id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "genre_seq")
+    @SequenceGenerator(name = "genre_seq", sequenceName = "genre_seq", allocationSize = 50)
+    private long id;
 
     @NotBlank(message = "Genre name cannot be blank")
     private String name;
@@ -27,17 +38,43 @@ public class Genre {
     @NotBlank(message = "Genre description cannot be blank")
     private String description;
 
+    // Representation version behind the ETag/Last-Modified validators, bumped by CatalogCache. The bump
+    // bypasses the second-level cache, so read both columns with findVersionById, not from the entity
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long version;
+
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime lastModified;
+
+    @PrePersist
+    public void onCreate() {
+        this.lastModified = LocalDateTime.now();
+    }
+
+    // Number of linked books, adjusted in place by BookCounters whenever a link is added or removed and kept in
+    // step on loaded entities by the link helpers. Never written through the entity, so concurrent link changes
+    // cannot overwrite each other. Indexed (schema.sql) for the most-books orderings
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long bookCount;
+
     @ManyToMany(mappedBy = "genres", fetch = FetchType.LAZY)
     private Set<Book> books = new HashSet<>();
 
     // Convenience methods for Book management
     public void addBook(Book book) {
-        books.add(book);
+        if (books.add(book)) {
+            bookCount++;
+        }
         book.getGenres().add(this);
     }
 
     public void removeBook(Book book) {
-        books.remove(book);
+        if (books.remove(book)) {
+            bookCount--;
+        }
         book.getGenres().remove(this);
     }
 
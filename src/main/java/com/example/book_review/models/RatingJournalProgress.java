@@ -0,0 +1,24 @@
+package com.example.book_review.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Highest journal sequence whose rating is in the database, per write-behind journal (RatingWriteBehindQueue).
+// Advanced in the same transaction as the batch it covers, so a restart never replays an applied rating.
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "rating_journal_progress")
+public class RatingJournalProgress {
+    // Random id written at the top of the journal file, so instances with separate journals do not share a row
+    @Id
+    private String journalId;
+
+    @Column(nullable = false)
+    private long appliedSequence;
+}
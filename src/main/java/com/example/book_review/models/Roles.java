@@ -1,11 +1,16 @@
 package com.example.book_review.models;
 
+import com.example.book_review.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,11 +21,17 @@ import java.util.List;
 @Setter
 @Entity
 @Table(name="role")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.ROLES)
+@NaturalIdCache(region = HibernateCacheConfig.ROLES_BY_NAME)
 public class Roles {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private int id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_seq")
+    @SequenceGenerator(name = "role_seq", sequenceName = "role_seq", allocationSize = 50)
+    private long id;
 
+    // Natural id: RoleRepository.findByName resolves through the natural-id cache
+    @NaturalId(mutable = true)
     @NotBlank(message = "name cannot be blank")
     private String name;
 
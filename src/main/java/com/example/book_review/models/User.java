@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,8 +20,9 @@ import java.util.List;
 @Setter
 public class User {
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
-    private int id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
+    private long id;
 
     @Column(unique = true)
     @NotBlank(message = "Email cannot be blank")
@@ -34,6 +36,12 @@ public class User {
     @Size(min=6, message="The password should have atleast 6 characters")
     private String password;
 
+    // Carried in every JWT; stateless mode rejects tokens with an older version. Incremented by
+    // JwtRevocationRegistry, never written through the entity
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private int tokenVersion;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name="role_id",nullable = false)
     private Roles role;
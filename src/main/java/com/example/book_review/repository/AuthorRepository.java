@@ -1,13 +1,67 @@
 package com.example.book_review.repository;
 
+import com.example.book_review.config.HibernateCacheConfig;
+import com.example.book_review.dto.ResourceVersion;
 import com.example.book_review.models.Author;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface AuthorRepository extends JpaRepository<Author, Integer> {
+public interface AuthorRepository extends JpaRepository<Author, Long> {
     List<Author> findByNameContainingIgnoreCase(String name);
+
+    @EntityGraph(Author.DETAIL_GRAPH)
     List<Author> findByNationalityIgnoreCase(String name);
+
+    // Author with its books and their authors, for AuthorResponseDTO and for relinking
+    @EntityGraph(Author.DETAIL_GRAPH)
+    Optional<Author> findDetailById(Long id);
+
+    // Authors with the most books first, read in order from idx_author_book_count
+    List<Author> findAllByOrderByBookCountDescIdAsc(Pageable pageable);
+
+    // ETag/Last-Modified validators of a single author
+    @Query("SELECT new com.example.book_review.dto.ResourceVersion(a.version, a.lastModified) FROM Author a WHERE a.id = :id")
+    Optional<ResourceVersion> findVersionById(@Param("id") Long id);
+
+    // Advance the representation version of the given authors. Native and synchronized on a query space no
+    // entity maps to, so Hibernate keeps the second-level cache region instead of dropping it as it would after
+    // a bulk JPQL update (the cached entities' version/lastModified are not read, see Author)
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HibernateCacheConfig.VERSIONS_SPACE))
+    @Query(value = "UPDATE author SET version = version + 1, last_modified = :now WHERE id IN (:ids)", nativeQuery = true)
+    int bumpVersions(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Add delta to the book counter of the given authors in place (see BookCounters). Synchronized on the same
+    // query space as bumpVersions; BookCounters evicts the adjusted authors from the second-level cache itself
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HibernateCacheConfig.VERSIONS_SPACE))
+    @Query(value = "UPDATE author SET book_count = book_count + :delta WHERE id IN (:ids)", nativeQuery = true)
+    int adjustBookCounts(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    // Recount the book counter of every author from book_author (repair of drift, see BookCounters). Only rows
+    // whose counter is off are written; synchronized like adjustBookCounts
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HibernateCacheConfig.VERSIONS_SPACE))
+    @Query(value = """
+            UPDATE author a SET book_count = c.cnt
+            FROM (SELECT x.id, (SELECT COUNT(*) FROM book_author ba WHERE ba.author_id = x.id) AS cnt FROM author x) c
+            WHERE a.id = c.id AND a.book_count <> c.cnt
+            """, nativeQuery = true)
+    int rebuildAllBookCounts();
 }
@@ -1,14 +1,262 @@
 package com.example.book_review.repository;
 
+import com.example.book_review.dto.BookSummaryDTO;
+import com.example.book_review.dto.ResourceVersion;
 import com.example.book_review.models.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Integer> {
+public interface BookRepository extends JpaRepository<Book, Long> {
     // Find books within a price range
+    @EntityGraph(Book.SUMMARY_GRAPH)
     List<Book> findByPriceBetween(Integer minPrice, Integer maxPrice);
 
-    // Find books by title containing text (case-insensitive)
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    // Book with its authors and genres, for BookResponseDTO and for relinking
+    @EntityGraph(Book.DETAIL_GRAPH)
+    Optional<Book> findDetailById(Long id);
+
+    // Books with their authors, for linking to an author
+    @EntityGraph(Book.SUMMARY_GRAPH)
+    List<Book> findByIdIn(Collection<Long> ids);
+
+    // Select/join shared by the BookSummaryDTO projections: author names aggregated in SQL,
+    // rating average read from the aggregate columns
+    String SUMMARY_PROJECTION = """
+            SELECT new com.example.book_review.dto.BookSummaryDTO(
+                b.id,
+                b.title,
+                COALESCE(LISTAGG(a.name, ', ') WITHIN GROUP (ORDER BY a.name), 'Unknown Author'),
+                b.price,
+                b.publishedDate,
+                CASE WHEN b.ratingCount = 0 THEN 0.0 ELSE b.ratingSum * 1.0 / b.ratingCount END,
+                b.ratingCount)
+            FROM Book b LEFT JOIN b.authors a
+            """;
+
+    // Weighted document searched by the full-text index: title (A), author names (B), description (C)
+    String SEARCH_DOCUMENT = """
+            setweight(to_tsvector('english', COALESCE(b.title, '')), 'A')
+            || setweight(to_tsvector('english', COALESCE((SELECT string_agg(a.name, ' ')
+                    FROM book_author ba JOIN author a ON a.id = ba.author_id
+                    WHERE ba.book_id = b.id), '')), 'B')
+            || setweight(to_tsvector('english', COALESCE(b.description, '')), 'C')
+            """;
+
+    // Book summaries built in a single query, honouring the pageable's paging and sort
+    @Query(value = SUMMARY_PROJECTION + " GROUP BY b.id", countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookSummaryDTO> findAllSummaries(Pageable pageable);
+
+    // Book summaries for a set of ids (order is not preserved)
+    @Query(SUMMARY_PROJECTION + " WHERE b.id IN :ids GROUP BY b.id")
+    List<BookSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ETag/Last-Modified validators of a single book
+    @Query("SELECT new com.example.book_review.dto.ResourceVersion(b.version, b.lastModified) FROM Book b WHERE b.id = :id")
+    Optional<ResourceVersion> findVersionById(@Param("id") Long id);
+
+    // Advance the representation version of the given books
+    @Transactional
+    @Modifying
+    @Query("UPDATE Book b SET b.version = b.version + 1, b.lastModified = :now WHERE b.id IN :ids")
+    int bumpVersions(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Book summaries of one author or one genre, paged and sorted by the database. The link is tested in a
+    // subquery so the outer join still aggregates every co-author's name.
+    @Query(value = SUMMARY_PROJECTION
+            + " WHERE b.id IN (SELECT lb.id FROM Book lb JOIN lb.authors la WHERE la.id = :authorId) GROUP BY b.id",
+            countQuery = "SELECT COUNT(b) FROM Book b JOIN b.authors a WHERE a.id = :authorId")
+    Page<BookSummaryDTO> findSummariesByAuthorId(@Param("authorId") long authorId, Pageable pageable);
+
+    @Query(value = SUMMARY_PROJECTION
+            + " WHERE b.id IN (SELECT lb.id FROM Book lb JOIN lb.genres lg WHERE lg.id = :genreId) GROUP BY b.id",
+            countQuery = "SELECT COUNT(b) FROM Book b JOIN b.genres g WHERE g.id = :genreId")
+    Page<BookSummaryDTO> findSummariesByGenreId(@Param("genreId") long genreId, Pageable pageable);
+
+    // Whole catalog as one JSON document per book, in the shape of BookResponseDTO without the review count.
+    // Read through a forward-only cursor (fetch size hint) so only one batch of rows is held at a time;
+    // the caller must consume and close the stream inside a read-only transaction.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = """
+            SELECT json_build_object(
+                'id', b.id,
+                'title', b.title,
+                'description', b.description,
+                'price', b.price,
+                'publishedDate', b.published_date,
+                'genres', COALESCE((SELECT json_agg(json_build_object('id', g.id, 'name', g.name) ORDER BY g.name)
+                        FROM book_genre bg JOIN genre g ON g.id = bg.genre_id
+                        WHERE bg.book_id = b.id), '[]'::json),
+                'authors', COALESCE((SELECT json_agg(json_build_object('id', a.id, 'name', a.name,
+                                'nationality', a.nationality) ORDER BY a.name)
+                        FROM book_author ba JOIN author a ON a.id = ba.author_id
+                        WHERE ba.book_id = b.id), '[]'::json),
+                'averageRating', CASE WHEN b.rating_count = 0 THEN 0.0
+                        ELSE b.rating_sum::float8 / b.rating_count END,
+                'totalRatings', b.rating_count,
+                'ratingDistribution', json_build_object(
+                        '1', b.one_star_count, '2', b.two_star_count, '3', b.three_star_count,
+                        '4', b.four_star_count, '5', b.five_star_count)
+            )::text
+            FROM book b
+            ORDER BY b.id
+            """, nativeQuery = true)
+    Stream<String> streamCatalogExport();
+
+    // Full-text search over the GIN-indexed search_vector column, best matches first
+    @Query(value = """
+            SELECT b.id FROM book b, websearch_to_tsquery('english', :query) q
+            WHERE b.search_vector @@ q
+            ORDER BY ts_rank_cd(b.search_vector, q) DESC, b.id
+            """,
+            countQuery = "SELECT COUNT(*) FROM book b WHERE b.search_vector @@ websearch_to_tsquery('english', :query)",
+            nativeQuery = true)
+    Page<Long> searchIds(@Param("query") String query, Pageable pageable);
+
+    // Recompute the search document of the given books (after title, description or author changes). Synchronized
+    // on the book table only: without query spaces Hibernate would clear every second-level cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book"))
+    @Query(value = "UPDATE book b SET search_vector = " + SEARCH_DOCUMENT + " WHERE b.id IN (:bookIds)",
+            nativeQuery = true)
+    int refreshSearchVectors(@Param("bookIds") Collection<Long> bookIds);
+
+    // Add (delta = 1) or remove (delta = -1) a single rating from the book's aggregate in place
+    @Modifying
+    @Query("""
+            UPDATE Book b SET
+                b.ratingCount = b.ratingCount + :delta,
+                b.ratingSum = b.ratingSum + :stars * :delta,
+                b.oneStarCount = b.oneStarCount + CASE WHEN :stars = 1 THEN :delta ELSE 0 END,
+                b.twoStarCount = b.twoStarCount + CASE WHEN :stars = 2 THEN :delta ELSE 0 END,
+                b.threeStarCount = b.threeStarCount + CASE WHEN :stars = 3 THEN :delta ELSE 0 END,
+                b.fourStarCount = b.fourStarCount + CASE WHEN :stars = 4 THEN :delta ELSE 0 END,
+                b.fiveStarCount = b.fiveStarCount + CASE WHEN :stars = 5 THEN :delta ELSE 0 END
+            WHERE b.id = :bookId
+            """)
+    int adjustRatingStats(@Param("bookId") long bookId, @Param("stars") int stars, @Param("delta") int delta);
+
+    // Recompute the rating aggregate of the given books from the rating table
+    @Modifying
+    @Query(value = """
+            UPDATE book b SET
+                rating_count = (SELECT COUNT(*) FROM rating r WHERE r.book_id = b.id),
+                rating_sum = (SELECT COALESCE(SUM(r.stars), 0) FROM rating r WHERE r.book_id = b.id),
+                one_star_count = (SELECT COUNT(*) FROM rating r WHERE r.book_id = b.id AND r.stars = 1),
+                two_star_count = (SELECT COUNT(*) FROM rating r WHERE r.book_id = b.id AND r.stars = 2),
+                three_star_count = (SELECT COUNT(*) FROM rating r WHERE r.book_id = b.id AND r.stars = 3),
+                four_star_count = (SELECT COUNT(*) FROM rating r WHERE r.book_id = b.id AND r.stars = 4),
+                five_star_count = (SELECT COUNT(*) FROM rating r WHERE r.book_id = b.id AND r.stars = 5)
+            WHERE b.id IN (:bookIds)
+            """, nativeQuery = true)
+    int rebuildRatingStats(@Param("bookIds") Collection<Long> bookIds);
+
+    // Recompute the rating aggregate of every book (backfill after the columns are first added)
+    @Modifying
+    @Query(value = """
+            UPDATE book b SET
+                rating_count = COALESCE(s.cnt, 0),
+                rating_sum = COALESCE(s.total, 0),
+                one_star_count = COALESCE(s.s1, 0),
+                two_star_count = COALESCE(s.s2, 0),
+                three_star_count = COALESCE(s.s3, 0),
+                four_star_count = COALESCE(s.s4, 0),
+                five_star_count = COALESCE(s.s5, 0)
+            FROM book x
+            LEFT JOIN (
+                SELECT r.book_id,
+                       COUNT(*) AS cnt,
+                       SUM(r.stars) AS total,
+                       COUNT(*) FILTER (WHERE r.stars = 1) AS s1,
+                       COUNT(*) FILTER (WHERE r.stars = 2) AS s2,
+                       COUNT(*) FILTER (WHERE r.stars = 3) AS s3,
+                       COUNT(*) FILTER (WHERE r.stars = 4) AS s4,
+                       COUNT(*) FILTER (WHERE r.stars = 5) AS s5
+                FROM rating r
+                GROUP BY r.book_id
+            ) s ON s.book_id = x.id
+            WHERE b.id = x.id
+            """, nativeQuery = true)
+    int rebuildAllRatingStats();
+
+    // 🏆 Leaderboards: each query defines a "scored" CTE (book_id, score) and returns the top :size books
+    // overall (genreId null) followed by the top :size of every genre, each group in rank order
+
+    interface RankedBook {
+        Long getGenreId();
+
+        long getBookId();
+
+        double getScore();
+    }
+
+    String RANK_SCORED = """
+            , overall AS (
+                SELECT CAST(NULL AS bigint) AS genre_id, book_id, score FROM scored
+                ORDER BY score DESC, book_id LIMIT :size
+            ), per_genre AS (
+                SELECT genre_id, book_id, score FROM (
+                    SELECT bg.genre_id, s.book_id, s.score,
+                        ROW_NUMBER() OVER (PARTITION BY bg.genre_id ORDER BY s.score DESC, s.book_id) AS position
+                    FROM scored s JOIN book_genre bg ON bg.book_id = s.book_id
+                ) ranked
+                WHERE position <= :size
+            )
+            SELECT genre_id AS genreId, book_id AS bookId, score FROM overall
+            UNION ALL
+            SELECT genre_id, book_id, score FROM per_genre
+            ORDER BY 1 NULLS FIRST, 3 DESC, 2
+            """;
+
+    // Bayesian average: every book starts with :priorVotes ratings at the catalog-wide mean, so a handful of
+    // five-star ratings cannot outrank a large, consistently good record
+    @Query(value = """
+            WITH prior AS (
+                SELECT COALESCE(SUM(rating_sum) * 1.0 / NULLIF(SUM(rating_count), 0), 0) AS mean FROM book
+            ), scored AS (
+                SELECT b.id AS book_id,
+                    CAST((:priorVotes * p.mean + b.rating_sum) / (:priorVotes + b.rating_count) AS float8) AS score
+                FROM book b, prior p
+                WHERE b.rating_count > 0
+            )
+            """ + RANK_SCORED, nativeQuery = true)
+    List<RankedBook> rankTopRated(@Param("priorVotes") double priorVotes, @Param("size") int size);
+
+    @Query(value = """
+            WITH scored AS (
+                SELECT book_id, CAST(COUNT(*) AS float8) AS score FROM review GROUP BY book_id
+            )
+            """ + RANK_SCORED, nativeQuery = true)
+    List<RankedBook> rankMostReviewed(@Param("size") int size);
+
+    // Rating velocity with exponential decay: each rating since :since counts 1, halved every :halfLifeSeconds
+    @Query(value = """
+            WITH scored AS (
+                SELECT book_id,
+                    CAST(SUM(power(0.5, EXTRACT(EPOCH FROM (CAST(:now AS timestamp) - created_at)) / :halfLifeSeconds))
+                        AS float8) AS score
+                FROM rating
+                WHERE created_at > :since
+                GROUP BY book_id
+            )
+            """ + RANK_SCORED, nativeQuery = true)
+    List<RankedBook> rankTrending(@Param("now") LocalDateTime now, @Param("since") LocalDateTime since,
+                                  @Param("halfLifeSeconds") double halfLifeSeconds, @Param("size") int size);
 }
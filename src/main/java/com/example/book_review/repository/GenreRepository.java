@@ -1,22 +1,32 @@
 package com.example.book_review.repository;
 
+import com.example.book_review.config.HibernateCacheConfig;
+import com.example.book_review.dto.ResourceVersion;
 import com.example.book_review.models.Genre;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface GenreRepository extends JpaRepository<Genre,Integer> {
+public interface GenreRepository extends JpaRepository<Genre, Long> {
 
     // Check if genre exists by name (case-insensitive)
     boolean existsByNameIgnoreCase(String name);
 
     // Check if genre exists by name excluding current genre (for updates)
-    boolean existsByNameIgnoreCaseAndIdNot(String name, Integer id);
+    boolean existsByNameIgnoreCaseAndIdNot(String name, Long id);
 
     // Find all genres ordered by name
     List<Genre> findAllByOrderByNameAsc();
@@ -24,11 +34,47 @@ public interface GenreRepository extends JpaRepository<Genre,Integer> {
     // Search genres by name containing text - returns List for service compatibility
     List<Genre> findByNameContainingIgnoreCaseOrderByName(String name);
 
-    // Find genres ordered by book count (most popular first)
-    @Query("SELECT g FROM Genre g LEFT JOIN g.books b GROUP BY g ORDER BY COUNT(b) DESC")
-    List<Genre> findGenresOrderByBookCountDesc();
+    // Find genres ordered by book count (most popular first), read in order from idx_genre_book_count
+    @Query("SELECT g FROM Genre g ORDER BY g.bookCount DESC, g.id")
+    List<Genre> findGenresOrderByBookCountDesc(Pageable pageable);
 
     // Find genre with books loaded
-    @Query("SELECT g FROM Genre g LEFT JOIN FETCH g.books WHERE g.id = :id")
-    Optional<Genre> findByIdWithBooks(@Param("id") Integer id);
+    @EntityGraph(Genre.BOOKS_GRAPH)
+    @Query("SELECT g FROM Genre g WHERE g.id = :id")
+    Optional<Genre> findByIdWithBooks(@Param("id") Long id);
+
+    // ETag/Last-Modified validators of a single genre
+    @Query("SELECT new com.example.book_review.dto.ResourceVersion(g.version, g.lastModified) FROM Genre g WHERE g.id = :id")
+    Optional<ResourceVersion> findVersionById(@Param("id") Long id);
+
+    // ETag/Last-Modified validators of the whole genre collection: row count, version sum and latest change
+    @Query("SELECT new com.example.book_review.dto.ResourceVersion(COUNT(g), COALESCE(SUM(g.version), 0), MAX(g.lastModified)) FROM Genre g")
+    ResourceVersion findCollectionVersion();
+
+    // Advance the representation version of the given genres. Native and synchronized on a query space no
+    // entity maps to, so Hibernate keeps the second-level cache region instead of dropping it as it would after
+    // a bulk JPQL update (the cached entities' version/lastModified are not read, see Genre)
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HibernateCacheConfig.VERSIONS_SPACE))
+    @Query(value = "UPDATE genre SET version = version + 1, last_modified = :now WHERE id IN (:ids)", nativeQuery = true)
+    int bumpVersions(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Add delta to the book counter of the given genres in place (see BookCounters). Synchronized on the same
+    // query space as bumpVersions; BookCounters evicts the adjusted genres from the second-level cache itself
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HibernateCacheConfig.VERSIONS_SPACE))
+    @Query(value = "UPDATE genre SET book_count = book_count + :delta WHERE id IN (:ids)", nativeQuery = true)
+    int adjustBookCounts(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    // Recount the book counter of every genre from book_genre (repair of drift, see BookCounters). Only rows
+    // whose counter is off are written; synchronized like adjustBookCounts
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HibernateCacheConfig.VERSIONS_SPACE))
+    @Query(value = """
+            UPDATE genre g SET book_count = c.cnt
+            FROM (SELECT x.id, (SELECT COUNT(*) FROM book_genre bg WHERE bg.genre_id = x.id) AS cnt FROM genre x) c
+            WHERE g.id = c.id AND g.book_count <> c.cnt
+            """, nativeQuery = true)
+    int rebuildAllBookCounts();
 }
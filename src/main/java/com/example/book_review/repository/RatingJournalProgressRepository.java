@@ -0,0 +1,29 @@
+package com.example.book_review.repository;
+
+import com.example.book_review.models.RatingJournalProgress;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface RatingJournalProgressRepository extends JpaRepository<RatingJournalProgress, String> {
+
+    @Query("SELECT p.appliedSequence FROM RatingJournalProgress p WHERE p.journalId = :journalId")
+    Optional<Long> findAppliedSequence(@Param("journalId") String journalId);
+
+    // Runs inside the batch transaction. Synchronized on its own table only, so Hibernate leaves the
+    // second-level cache regions alone
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rating_journal_progress"))
+    @Query(value = """
+            INSERT INTO rating_journal_progress (journal_id, applied_sequence) VALUES (:journalId, :sequence)
+            ON CONFLICT (journal_id) DO UPDATE
+                SET applied_sequence = GREATEST(rating_journal_progress.applied_sequence, EXCLUDED.applied_sequence)
+            """, nativeQuery = true)
+    int advance(@Param("journalId") String journalId, @Param("sequence") long sequence);
+}
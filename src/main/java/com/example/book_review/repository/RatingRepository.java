@@ -1,35 +1,109 @@
 package com.example.book_review.repository;
 
+import com.example.book_review.dto.RatingSummaryDTO;
 import com.example.book_review.models.Book;
 import com.example.book_review.models.Rating;
 import com.example.book_review.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface RatingRepository extends JpaRepository<Rating, Integer> {
+public interface RatingRepository extends JpaRepository<Rating, Long> {
 
     // Find rating by user and book
     Optional<Rating> findByUserAndBook(User user, Book book);
 
-    // Find ratings by book ordered by creation date (newest first) - List for service compatibility
-    List<Rating> findByBookOrderByCreatedAtDesc(Book book);
-
-    // Find ratings by user ordered by creation date (newest first) - List for service compatibility
-    List<Rating> findByUserOrderByCreatedAtDesc(User user);
+    // Insert the user's rating of the book, or overwrite the existing one, and move the book's rating aggregate
+    // by the difference, all in one statement (relies on the unique index on (user_id, book_id)).
+    // The existing row is locked before it is overwritten, so its current stars are known. Empty when the user
+    // or the book does not exist, and also when a concurrent request inserted the rating after this statement
+    // started: its stars were not seen, so the row is left alone and the caller runs the statement again.
+    @Query(value = """
+            WITH target AS (
+                SELECT u.id AS user_id, b.id AS book_id FROM users u, book b
+                WHERE u.username = :username AND b.id = :bookId
+            ), previous AS (
+                SELECT r.stars FROM rating r JOIN target t ON r.user_id = t.user_id AND r.book_id = t.book_id
+                FOR UPDATE OF r
+            ), upserted AS (
+                INSERT INTO rating (id, stars, user_id, book_id, created_at, version)
+                SELECT :id, :stars, t.user_id, t.book_id, :now, 0 FROM target t LEFT JOIN previous p ON true
+                ON CONFLICT (user_id, book_id) DO UPDATE
+                    SET stars = EXCLUDED.stars, updated_at = EXCLUDED.created_at, version = rating.version + 1
+                    WHERE EXISTS (SELECT 1 FROM previous)
+                RETURNING id, stars, user_id, book_id, created_at, updated_at, version
+            ), changes AS (
+                SELECT stars, 1 AS delta FROM upserted
+                UNION ALL
+                SELECT stars, -1 FROM previous
+            ), stats AS (
+                UPDATE book b SET
+                    rating_count = b.rating_count + d.delta,
+                    rating_sum = b.rating_sum + d.stars_delta,
+                    one_star_count = b.one_star_count + d.one_star,
+                    two_star_count = b.two_star_count + d.two_star,
+                    three_star_count = b.three_star_count + d.three_star,
+                    four_star_count = b.four_star_count + d.four_star,
+                    five_star_count = b.five_star_count + d.five_star
+                FROM (SELECT SUM(delta) AS delta,
+                          SUM(stars * delta) AS stars_delta,
+                          SUM(CASE WHEN stars = 1 THEN delta ELSE 0 END) AS one_star,
+                          SUM(CASE WHEN stars = 2 THEN delta ELSE 0 END) AS two_star,
+                          SUM(CASE WHEN stars = 3 THEN delta ELSE 0 END) AS three_star,
+                          SUM(CASE WHEN stars = 4 THEN delta ELSE 0 END) AS four_star,
+                          SUM(CASE WHEN stars = 5 THEN delta ELSE 0 END) AS five_star
+                      FROM changes) d
+                WHERE b.id = :bookId AND d.delta IS NOT NULL
+            )
+            SELECT * FROM upserted
+            """, nativeQuery = true)
+    Optional<Rating> upsert(@Param("id") long id, @Param("username") String username, @Param("bookId") long bookId,
+                            @Param("stars") int stars, @Param("now") LocalDateTime now);
 
     // Calculate average rating for a book
     @Query("SELECT AVG(r.stars) FROM Rating r WHERE r.book = :book")
     Double findAverageRatingByBook(@Param("book") Book book);
 
+    // Ids of the books a user has rated (used to refresh rating aggregates when the user is removed)
+    @Query("SELECT DISTINCT r.book.id FROM Rating r WHERE r.user = :user")
+    List<Long> findRatedBookIdsByUser(@Param("user") User user);
+
     // Count ratings for a book
     Long countByBook(Book book);
 
     // Find top 10 recent ratings for a book
     List<Rating> findTop10ByBookOrderByCreatedAtDesc(Book book);
+
+    // Newest ratings first, ordered to match the (created_at DESC, id DESC) index; no count query
+    String FEED_PROJECTION = """
+            SELECT new com.example.book_review.dto.RatingSummaryDTO(r.id, r.stars, r.createdAt, u.username)
+            FROM Rating r JOIN r.user u
+            """;
+
+    @Query(FEED_PROJECTION + " ORDER BY r.createdAt DESC, r.id DESC")
+    List<RatingSummaryDTO> findFeed(Limit limit);
+
+    // Ratings strictly after the cursor row (createdAt, id) in feed order
+    @Query(FEED_PROJECTION + " WHERE (r.createdAt, r.id) < (:createdAt, :id) ORDER BY r.createdAt DESC, r.id DESC")
+    List<RatingSummaryDTO> findFeedAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    // Rating summaries of one book or one user, paged and sorted by the database
+    @Query(value = FEED_PROJECTION + " WHERE r.book.id = :bookId",
+            countQuery = "SELECT COUNT(r) FROM Rating r WHERE r.book.id = :bookId")
+    Page<RatingSummaryDTO> findSummariesByBookId(@Param("bookId") long bookId, Pageable pageable);
+
+    @Query(value = FEED_PROJECTION + " WHERE u.id = :userId",
+            countQuery = "SELECT COUNT(r) FROM Rating r WHERE r.user.id = :userId")
+    Page<RatingSummaryDTO> findSummariesByUserId(@Param("userId") long userId, Pageable pageable);
+
+    @Query(value = FEED_PROJECTION + " WHERE u.username = :username",
+            countQuery = "SELECT COUNT(r) FROM Rating r WHERE r.user.username = :username")
+    Page<RatingSummaryDTO> findSummariesByUsername(@Param("username") String username, Pageable pageable);
 }
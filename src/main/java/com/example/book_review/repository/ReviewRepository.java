@@ -1,28 +1,84 @@
 package com.example.book_review.repository;
 
+import com.example.book_review.dto.ReviewSummaryDTO;
 import com.example.book_review.models.Book;
 import com.example.book_review.models.Reviews;
 import com.example.book_review.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ReviewRepository extends JpaRepository<Reviews,Integer> {
+public interface ReviewRepository extends JpaRepository<Reviews, Long> {
 
-    // Check if user already reviewed a book
-    boolean existsByUserAndBook(User user, Book book);
+    // Insert the user's review of the book unless one exists (unique index on (user_id, book_id)), in one
+    // statement. Empty when the user or the book does not exist, or the user already reviewed the book.
+    @Query(value = """
+            INSERT INTO review (id, comment, user_id, book_id, created_at, version)
+            SELECT :id, :comment, u.id, b.id, :now, 0 FROM users u, book b
+            WHERE u.username = :username AND b.id = :bookId
+            ON CONFLICT (user_id, book_id) DO NOTHING
+            RETURNING id, comment, user_id, book_id, created_at, updated_at, version
+            """, nativeQuery = true)
+    Optional<Reviews> insertIfAbsent(@Param("id") long id, @Param("username") String username,
+                                     @Param("bookId") long bookId, @Param("comment") String comment,
+                                     @Param("now") LocalDateTime now);
 
-    // Find reviews by book ordered by creation date (newest first) - List for service compatibility
-    List<Reviews> findByBookOrderByCreatedAtDesc(Book book);
-
-    // Find reviews by user ordered by creation date (newest first) - List for service compatibility
-    List<Reviews> findByUserOrderByCreatedAtDesc(User user);
+    // Ids of the books a user has reviewed (used to invalidate cached book responses when the user is removed)
+    @Query("SELECT DISTINCT r.book.id FROM Reviews r WHERE r.user = :user")
+    List<Long> findReviewedBookIdsByUser(@Param("user") User user);
 
     // Find top 5 recent reviews for a book
     List<Reviews> findTop5ByBookOrderByCreatedAtDesc(Book book);
 
-    // Search reviews by comment containing text (case-insensitive)
-    List<Reviews> findByCommentContainingIgnoreCase(String query);
+    // Full-text search over the GIN-indexed comment_vector column, best matches first
+    @Query(value = """
+            SELECT r.id FROM review r, websearch_to_tsquery('english', :query) q
+            WHERE r.comment_vector @@ q
+            ORDER BY ts_rank_cd(r.comment_vector, q) DESC, r.id DESC
+            """,
+            countQuery = "SELECT COUNT(*) FROM review r WHERE r.comment_vector @@ websearch_to_tsquery('english', :query)",
+            nativeQuery = true)
+    Page<Long> searchIdsByComment(@Param("query") String query, Pageable pageable);
+
+    // Review summaries for a set of ids with the username joined in (order is not preserved)
+    @Query("""
+            SELECT new com.example.book_review.dto.ReviewSummaryDTO(r.id, r.comment, r.createdAt, u.username)
+            FROM Reviews r JOIN r.user u
+            WHERE r.id IN :ids
+            """)
+    List<ReviewSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Newest reviews first, ordered to match the (created_at DESC, id DESC) index; no count query
+    String FEED_PROJECTION = """
+            SELECT new com.example.book_review.dto.ReviewSummaryDTO(r.id, r.comment, r.createdAt, u.username)
+            FROM Reviews r JOIN r.user u
+            """;
+
+    @Query(FEED_PROJECTION + " ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewSummaryDTO> findFeed(Limit limit);
+
+    // Reviews strictly after the cursor row (createdAt, id) in feed order
+    @Query(FEED_PROJECTION + " WHERE (r.createdAt, r.id) < (:createdAt, :id) ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewSummaryDTO> findFeedAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Limit limit);
+
+    // Review summaries of one book or one user, paged and sorted by the database
+    @Query(value = FEED_PROJECTION + " WHERE r.book.id = :bookId",
+            countQuery = "SELECT COUNT(r) FROM Reviews r WHERE r.book.id = :bookId")
+    Page<ReviewSummaryDTO> findSummariesByBookId(@Param("bookId") long bookId, Pageable pageable);
+
+    @Query(value = FEED_PROJECTION + " WHERE u.id = :userId",
+            countQuery = "SELECT COUNT(r) FROM Reviews r WHERE r.user.id = :userId")
+    Page<ReviewSummaryDTO> findSummariesByUserId(@Param("userId") long userId, Pageable pageable);
+
+    @Query(value = FEED_PROJECTION + " WHERE u.username = :username",
+            countQuery = "SELECT COUNT(r) FROM Reviews r WHERE r.user.username = :username")
+    Page<ReviewSummaryDTO> findSummariesByUsername(@Param("username") String username, Pageable pageable);
 }
@@ -2,13 +2,19 @@ package com.example.book_review.repository;
 
 import com.example.book_review.models.Roles;
 import com.example.book_review.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
-import java.util.Optional;
 
-public interface RoleRepository extends JpaRepository<Roles,Integer> {
-    Optional<Roles> findByName(String rolename);
+public interface RoleRepository extends JpaRepository<Roles, Long>, RoleRepositoryCustom {
+
+    // The role list is tiny and rarely changes: keep it in the query cache
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Roles> findAll();
 
     boolean existsByName(String rolename); // ✅ checks if username exists
 
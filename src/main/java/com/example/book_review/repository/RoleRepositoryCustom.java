@@ -0,0 +1,11 @@
+package com.example.book_review.repository;
+
+import com.example.book_review.models.Roles;
+
+import java.util.Optional;
+
+public interface RoleRepositoryCustom {
+
+    // Natural-id lookup: served from the second-level cache once the role has been loaded
+    Optional<Roles> findByName(String rolename);
+}
@@ -0,0 +1,22 @@
+package com.example.book_review.repository;
+
+import com.example.book_review.models.Roles;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class RoleRepositoryCustomImpl implements RoleRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Unwrapping the shared EntityManager outside a transaction would hand back an already closed Session
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Roles> findByName(String rolename) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Roles.class).loadOptional(rolename);
+    }
+}
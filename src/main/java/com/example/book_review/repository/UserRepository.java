@@ -1,14 +1,34 @@
 package com.example.book_review.repository;
 
+import com.example.book_review.dto.TokenVersion;
 import com.example.book_review.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User,Integer> {
+public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username); // ✅ checks if username exists
 
     boolean existsByEmail(String email);
+
+    // Identity and token version behind stateless JWT authentication (see JwtRevocationRegistry); empty for
+    // unknown users
+    @Query("SELECT new com.example.book_review.dto.TokenVersion(u.id, u.tokenVersion) FROM User u WHERE u.username = :username")
+    Optional<TokenVersion> findTokenVersionByUsername(@Param("username") String username);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.username = :username")
+    int revokeTokens(@Param("username") String username);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1")
+    int revokeAllTokens();
 }
@@ -6,13 +6,18 @@ import com.example.book_review.models.Book;
 import com.example.book_review.repository.AuthorRepository;
 import com.example.book_review.repository.BookRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,9 +30,13 @@ public class AuthorService {
     private BookRepository bookRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BookCounters bookCounters;
 
     // ✅ CREATE AUTHOR
+    @Transactional
     public AuthorResponseDTO createAuthor(AuthorCreateUpdateDTO dto) {
         Author author = new Author();
         author.setName(dto.getName());
@@ -35,7 +44,7 @@ public class AuthorService {
         author.setNationality(dto.getNationality());
 
         if (dto.getBookIds() != null && !dto.getBookIds().isEmpty()) {
-            List<Book> books = bookRepository.findAllById(dto.getBookIds());
+            List<Book> books = bookRepository.findByIdIn(dto.getBookIds());
             if (books.size() != dto.getBookIds().size()) {
                 throw new EntityNotFoundException("One or more books not found");
             }
@@ -45,6 +54,9 @@ public class AuthorService {
         }
 
         Author savedAuthor = authorRepository.save(author);
+        refreshBookSearchVectors(bookIds(savedAuthor));
+        bookCounters.adjustAuthors(List.of(savedAuthor.getId()), savedAuthor.getBooks().size());
+        evictLinkedBooks(savedAuthor);
         return mapToAuthorResponse(savedAuthor);
     }
 
@@ -54,25 +66,10 @@ public class AuthorService {
         return authors.map(this::mapToAuthorSummary);
     }
 
-    // 🔍 GET ALL AUTHORS (without pagination)
-    public List<AuthorResponseDTO> getAllAuthors() {
-        List<Author> authors = authorRepository.findAll();
-        return authors.stream()
-                .map(this::mapToAuthorResponse)
-                .collect(Collectors.toList());
-    }
-
-    // 🔍 GET ALL AUTHORS SUMMARY (for dropdowns/references)
-    public List<AuthorSummaryDTO> getAllAuthorsSummary() {
-        List<Author> authors = authorRepository.findAll();
-        return authors.stream()
-                .map(this::mapToAuthorSummary)
-                .collect(Collectors.toList());
-    }
-
-    // 🔍 GET AUTHOR BY ID - Changed to Long
-    public AuthorResponseDTO getAuthorById(Long id) {
-        Author author = authorRepository.findById(id.intValue())
+    // 🔍 GET AUTHOR BY ID - Changed to Long. Cached per version, like BookService.getBookById
+    @Cacheable(cacheNames = CatalogCache.AUTHORS, key = "#id + ':' + #version")
+    public AuthorResponseDTO getAuthorById(Long id, long version) {
+        Author author = authorRepository.findDetailById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + id));
         return mapToAuthorResponse(author);
     }
@@ -93,27 +90,28 @@ public class AuthorService {
                 .collect(Collectors.toList());
     }
 
+    // 🏷️ GET AUTHOR VERSION - ETag/Last-Modified validators, read without loading the author
+    public ResourceVersion getAuthorVersion(Long id) {
+        return authorRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + id));
+    }
+
     // 🔍 GET AUTHOR BOOKS - New method
-    public List<BookSummaryDTO> getAuthorBooks(Long id) {
-        Author author = authorRepository.findById(id.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Author not found"));
-        return author.getBooks().stream()
-                .map(book -> {
-                    BookSummaryDTO dto = new BookSummaryDTO();
-                    dto.setId(book.getId());
-                    dto.setTitle(book.getTitle());
-                    dto.setAuthor(book.getAuthor());
-                    dto.setPrice(book.getPrice());
-                    dto.setPublishedDate(book.getPublishedDate());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public Page<BookSummaryDTO> getAuthorBooks(Long id, Pageable pageable) {
+        if (!authorRepository.existsById(id)) {
+            throw new EntityNotFoundException("Author not found");
+        }
+        return bookRepository.findSummariesByAuthorId(id, pageable);
     }
 
     // ✏️ UPDATE AUTHOR - Changed to Long
+    @Transactional
     public AuthorResponseDTO updateAuthor(Long id, AuthorCreateUpdateDTO dto) {
-        Author existingAuthor = authorRepository.findById(id.intValue())
+        Author existingAuthor = authorRepository.findDetailById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + id));
+        Set<Long> affectedBookIds = bookIds(existingAuthor);
+        catalogCache.evictAuthor(existingAuthor.getId());
+        evictLinkedBooks(existingAuthor);
 
         existingAuthor.setName(dto.getName());
         existingAuthor.setBio(dto.getBio());
@@ -122,7 +120,7 @@ public class AuthorService {
         if (dto.getBookIds() != null) {
             existingAuthor.clearBooks();
             if (!dto.getBookIds().isEmpty()) {
-                List<Book> books = bookRepository.findAllById(dto.getBookIds());
+                List<Book> books = bookRepository.findByIdIn(dto.getBookIds());
                 if (books.size() != dto.getBookIds().size()) {
                     throw new EntityNotFoundException("One or more books not found");
                 }
@@ -132,47 +130,69 @@ public class AuthorService {
             }
         }
 
+        int previousBookCount = affectedBookIds.size();
         Author updatedAuthor = authorRepository.save(existingAuthor);
+        affectedBookIds.addAll(bookIds(updatedAuthor));
+        refreshBookSearchVectors(affectedBookIds);
+        bookCounters.adjustAuthors(List.of(id), updatedAuthor.getBooks().size() - previousBookCount);
+        evictLinkedBooks(updatedAuthor);
         return mapToAuthorResponse(updatedAuthor);
     }
 
     // 🔗 ADD BOOK TO AUTHOR
-    public AuthorResponseDTO addBookToAuthor(int authorId, int bookId) {
-        Author author = authorRepository.findById(authorId)
+    @Transactional
+    public AuthorResponseDTO addBookToAuthor(long authorId, long bookId) {
+        Author author = authorRepository.findDetailById(authorId)
                 .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + authorId));
 
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + bookId));
 
+        int previousBookCount = author.getBooks().size();
         author.addBooks(book);
         Author savedAuthor = authorRepository.save(author);
+        catalogCache.evictAuthor(authorId);
+        catalogCache.evictBookGraph(book);
+        refreshBookSearchVectors(List.of(bookId));
+        bookCounters.adjustAuthors(List.of(authorId), savedAuthor.getBooks().size() - previousBookCount);
         return mapToAuthorResponse(savedAuthor);
     }
 
     // 🔗 REMOVE BOOK FROM AUTHOR
-    public AuthorResponseDTO removeBookFromAuthor(int authorId, int bookId) {
-        Author author = authorRepository.findById(authorId)
+    @Transactional
+    public AuthorResponseDTO removeBookFromAuthor(long authorId, long bookId) {
+        Author author = authorRepository.findDetailById(authorId)
                 .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + authorId));
 
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + bookId));
 
+        int previousBookCount = author.getBooks().size();
         author.removeBooks(book);
         Author savedAuthor = authorRepository.save(author);
+        catalogCache.evictAuthor(authorId);
+        catalogCache.evictBookGraph(book);
+        refreshBookSearchVectors(List.of(bookId));
+        bookCounters.adjustAuthors(List.of(authorId), savedAuthor.getBooks().size() - previousBookCount);
         return mapToAuthorResponse(savedAuthor);
     }
 
     // 🗑️ DELETE AUTHOR - Changed to Long
+    @Transactional
     public void deleteAuthor(Long id) {
-        Author author = authorRepository.findById(id.intValue())
+        Author author = authorRepository.findDetailById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + id));
 
+        Set<Long> affectedBookIds = bookIds(author);
+        catalogCache.evictAuthor(author.getId());
+        evictLinkedBooks(author);
         author.clearBooks();
         authorRepository.delete(author);
+        refreshBookSearchVectors(affectedBookIds);
     }
 
     // 🔍 CHECK IF AUTHOR EXISTS
-    public boolean existsById(int id) {
+    public boolean existsById(long id) {
         return authorRepository.existsById(id);
     }
 
@@ -181,16 +201,38 @@ public class AuthorService {
         return authorRepository.count();
     }
 
-    // 📊 GET AUTHORS WITH MOST BOOKS
+    // 📊 GET AUTHORS WITH MOST BOOKS - ordered by the maintained book counter
+    @Transactional(readOnly = true)
     public List<AuthorResponseDTO> getAuthorsWithMostBooks(int limit) {
-        List<Author> authors = authorRepository.findAll();
+        List<Author> authors = authorRepository.findAllByOrderByBookCountDescIdAsc(PageRequest.of(0, limit));
         return authors.stream()
-                .sorted((a1, a2) -> Integer.compare(a2.getBooks().size(), a1.getBooks().size()))
-                .limit(limit)
                 .map(this::mapToAuthorResponse)
                 .collect(Collectors.toList());
     }
 
+    // 🔄 HELPER METHOD: Ids of the books linked to an author
+    private Set<Long> bookIds(Author author) {
+        Set<Long> ids = new HashSet<>();
+        for (Book book : author.getBooks()) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+
+    // 🔄 HELPER METHOD: Book responses embed the author, and co-authors' responses embed the joined author names
+    private void evictLinkedBooks(Author author) {
+        catalogCache.evictBookGraphs(author.getBooks());
+    }
+
+    // 🔄 HELPER METHOD: Author names are part of the book search document, so re-index affected books
+    private void refreshBookSearchVectors(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        authorRepository.flush();
+        bookRepository.refreshSearchVectors(bookIds);
+    }
+
     // 🔄 HELPER METHOD: Map Entity to Response DTO
     private AuthorResponseDTO mapToAuthorResponse(Author author) {
         AuthorResponseDTO dto = new AuthorResponseDTO();
@@ -0,0 +1,119 @@
+package com.example.book_review.services;
+
+import com.example.book_review.models.Author;
+import com.example.book_review.models.Genre;
+import com.example.book_review.repository.AuthorRepository;
+import com.example.book_review.repository.GenreRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+// Maintains Author.bookCount and Genre.bookCount. Every flow that links or unlinks books reports the change here,
+// after flushing the links, and the counters are adjusted in place by delta, like Book's rating aggregate. The
+// native updates leave the second-level cache regions alone, so the adjusted authors and genres are evicted from
+// them once the transaction commits.
+@Component
+public class BookCounters {
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void adjustAuthors(Collection<Long> authorIds, int delta) {
+        if (authorIds.isEmpty() || delta == 0) {
+            return;
+        }
+        authorRepository.adjustBookCounts(authorIds, delta);
+        evictAfterCommit(Author.class, authorIds);
+    }
+
+    public void adjustGenres(Collection<Long> genreIds, int delta) {
+        if (genreIds.isEmpty() || delta == 0) {
+            return;
+        }
+        genreRepository.adjustBookCounts(genreIds, delta);
+        evictAfterCommit(Genre.class, genreIds);
+    }
+
+    // Per-id deltas (bulk import), one update per distinct delta
+    public void adjustAuthors(Map<Long, Integer> deltas) {
+        byDelta(deltas, this::adjustAuthors);
+    }
+
+    public void adjustGenres(Map<Long, Integer> deltas) {
+        byDelta(deltas, this::adjustGenres);
+    }
+
+    // A book's authors/genres replaced: count it for the newly linked ones and stop counting it for the unlinked
+    public void relinkAuthors(Set<Long> before, Set<Long> after) {
+        adjustAuthors(difference(after, before), 1);
+        adjustAuthors(difference(before, after), -1);
+    }
+
+    public void relinkGenres(Set<Long> before, Set<Long> after) {
+        adjustGenres(difference(after, before), 1);
+        adjustGenres(difference(before, after), -1);
+    }
+
+    // Recount every author and genre from the link tables, repairing drift; returns the number of rows corrected
+    public int rebuild() {
+        int updated = authorRepository.rebuildAllBookCounts() + genreRepository.rebuildAllBookCounts();
+        afterCommit(() -> {
+            entityManagerFactory.getCache().evict(Author.class);
+            entityManagerFactory.getCache().evict(Genre.class);
+        });
+        return updated;
+    }
+
+    private static void byDelta(Map<Long, Integer> deltas, BiConsumer<Collection<Long>, Integer> adjust) {
+        Map<Integer, List<Long>> idsByDelta = new TreeMap<>();
+        deltas.forEach((id, delta) -> idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(id));
+        idsByDelta.forEach((delta, ids) -> adjust.accept(ids, delta));
+    }
+
+    private static Set<Long> difference(Set<Long> from, Set<Long> remove) {
+        Set<Long> result = new HashSet<>(from);
+        result.removeAll(remove);
+        return result;
+    }
+
+    private void evictAfterCommit(Class<?> entity, Collection<Long> ids) {
+        List<Long> evicted = List.copyOf(ids);
+        afterCommit(() -> evict(entity, evicted));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void evict(Class<?> entity, Collection<Long> ids) {
+        for (Long id : ids) {
+            entityManagerFactory.getCache().evict(entity, id);
+        }
+    }
+}
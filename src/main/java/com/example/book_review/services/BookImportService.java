@@ -0,0 +1,309 @@
+package com.example.book_review.services;
+
+import com.example.book_review.dto.BookImportReportDTO;
+import com.example.book_review.dto.BookImportRowDTO;
+import com.example.book_review.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Bulk book import. Rows are parsed one at a time from the request stream, author/genre names are resolved
+// against lookup tables loaded once up front, and each chunk of rows is written with JDBC batches in its own
+// transaction, using id blocks drawn from the pooled book id sequence. A failed chunk is rolled back and reported;
+// later chunks still run.
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final int MAX_CHUNK_SIZE = 10_000;
+
+    // Marks a name shared by several authors/genres in a lookup table
+    private static final long AMBIGUOUS = -1;
+
+    public enum Format { CSV, NDJSON }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BookCounters bookCounters;
+
+    @Autowired
+    private SequenceIdAllocator idAllocator;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.import.chunk-size:1000}")
+    private int defaultChunkSize;
+
+    public BookImportReportDTO importBooks(InputStream in, Format format, Integer chunkSize) throws IOException {
+        int size = chunkSize == null ? defaultChunkSize : chunkSize;
+        if (size < 1 || size > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+
+        Map<String, Long> authorIds = loadLookup("SELECT id, name FROM author");
+        Map<String, Long> genreIds = loadLookup("SELECT id, name FROM genre");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        BookImportReportDTO report = new BookImportReportDTO();
+        List<PendingBook> pending = new ArrayList<>();
+        BookImportReportDTO.Chunk chunk = newChunk(report, 1);
+        RowSource rows = format == Format.CSV ? csvRows(in) : ndjsonRows(in);
+
+        ParsedRow parsed;
+        while ((parsed = rows.next()) != null) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            long rowNumber = report.getTotalRows();
+            PendingBook book = parsed.error == null
+                    ? resolve(parsed.row, authorIds, genreIds, rowNumber, chunk.getErrors())
+                    : reject(rowNumber, parsed.error, chunk.getErrors());
+            if (book != null) {
+                pending.add(book);
+            }
+            if (rowNumber - chunk.getFirstRow() + 1 == size) {
+                chunk.setLastRow(rowNumber);
+                commitChunk(chunk, pending, transactionTemplate, report);
+                pending.clear();
+                chunk = newChunk(report, rowNumber + 1);
+            }
+        }
+        if (report.getTotalRows() >= chunk.getFirstRow()) {
+            chunk.setLastRow(report.getTotalRows());
+            commitChunk(chunk, pending, transactionTemplate, report);
+        }
+        return report;
+    }
+
+    private BookImportReportDTO.Chunk newChunk(BookImportReportDTO report, long firstRow) {
+        BookImportReportDTO.Chunk chunk = new BookImportReportDTO.Chunk();
+        chunk.setChunk(report.getChunks().size() + 1);
+        chunk.setFirstRow(firstRow);
+        return chunk;
+    }
+
+    private void commitChunk(BookImportReportDTO.Chunk chunk, List<PendingBook> books,
+                             TransactionTemplate transactionTemplate, BookImportReportDTO report) {
+        try {
+            if (!books.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(books));
+            }
+            chunk.setImported(books.size());
+            chunk.setCommitted(true);
+        } catch (RuntimeException e) {
+            // Not only SQL errors: a failed commit (TransactionException) or a bug in writeChunk rolls back
+            // this chunk alone, and the import goes on with the next one
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+            log.warn("Book import chunk {} rolled back", chunk.getChunk(), e);
+            chunk.getErrors().add(new BookImportReportDTO.RowError(0, "Chunk rolled back: "
+                    + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName())));
+        }
+        long rows = chunk.getLastRow() - chunk.getFirstRow() + 1;
+        report.getChunks().add(chunk);
+        report.setImportedRows(report.getImportedRows() + chunk.getImported());
+        report.setFailedRows(report.getFailedRows() + rows - chunk.getImported());
+        log.info("Book import chunk {} (rows {}-{}): {} imported, {} errors, committed={}",
+                chunk.getChunk(), chunk.getFirstRow(), chunk.getLastRow(), chunk.getImported(),
+                chunk.getErrors().size(), chunk.isCommitted());
+    }
+
+    private void writeChunk(List<PendingBook> books) {
+        List<Long> ids = idAllocator.allocate("book_seq", books.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> bookRows = new ArrayList<>(books.size());
+        List<Object[]> authorLinks = new ArrayList<>();
+        List<Object[]> genreLinks = new ArrayList<>();
+        // Books linked per author/genre in this chunk, the delta of their book counters
+        Map<Long, Integer> touchedAuthors = new LinkedHashMap<>();
+        Map<Long, Integer> touchedGenres = new LinkedHashMap<>();
+        for (int i = 0; i < books.size(); i++) {
+            PendingBook book = books.get(i);
+            long id = ids.get(i);
+            BookImportRowDTO row = book.row;
+            bookRows.add(new Object[]{id, row.getTitle(), row.getDescription(), row.getPrice(),
+                    Date.valueOf(row.getPublishedDate()), now});
+            for (long authorId : book.authorIds) {
+                authorLinks.add(new Object[]{id, authorId});
+            }
+            for (long genreId : book.genreIds) {
+                genreLinks.add(new Object[]{id, genreId});
+            }
+            book.authorIds.forEach(authorId -> touchedAuthors.merge(authorId, 1, Integer::sum));
+            book.genreIds.forEach(genreId -> touchedGenres.merge(genreId, 1, Integer::sum));
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO book (id, title, description, price, published_date, last_modified) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", bookRows);
+        if (!authorLinks.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO book_author (book_id, author_id) VALUES (?, ?)", authorLinks);
+        }
+        if (!genreLinks.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO book_genre (book_id, genre_id) VALUES (?, ?)", genreLinks);
+        }
+        bookRepository.refreshSearchVectors(ids);
+        bookCounters.adjustAuthors(touchedAuthors);
+        bookCounters.adjustGenres(touchedGenres);
+        // Author and genre responses list their books
+        catalogCache.evictAuthors(touchedAuthors.keySet());
+        catalogCache.evictGenres(touchedGenres.keySet());
+    }
+
+    // Validates a parsed row and resolves its names; returns null (after recording why) when it cannot be imported
+    private PendingBook resolve(BookImportRowDTO row, Map<String, Long> authorIds, Map<String, Long> genreIds,
+                                long rowNumber, List<BookImportReportDTO.RowError> errors) {
+        List<String> problems = new ArrayList<>();
+        for (ConstraintViolation<BookImportRowDTO> violation : validator.validate(row)) {
+            problems.add(violation.getMessage());
+        }
+        Set<Long> authors = resolveNames(row.getAuthors(), authorIds, "author", problems);
+        Set<Long> genres = resolveNames(row.getGenres(), genreIds, "genre", problems);
+        if (!problems.isEmpty()) {
+            return reject(rowNumber, String.join("; ", problems), errors);
+        }
+        return new PendingBook(row, authors, genres);
+    }
+
+    private Set<Long> resolveNames(List<String> names, Map<String, Long> lookup, String kind,
+                                      List<String> problems) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (names == null) {
+            return ids;
+        }
+        for (String name : names) {
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            Long id = lookup.get(key(name));
+            if (id == null) {
+                problems.add("Unknown " + kind + ": " + name.trim());
+            } else if (id == AMBIGUOUS) {
+                problems.add("Ambiguous " + kind + " name: " + name.trim());
+            } else {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private PendingBook reject(long rowNumber, String message, List<BookImportReportDTO.RowError> errors) {
+        errors.add(new BookImportReportDTO.RowError(rowNumber, message));
+        return null;
+    }
+
+    // Lower-cased name -> id, read with a single streaming query
+    private Map<String, Long> loadLookup(String sql) {
+        Map<String, Long> lookup = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            lookup.merge(key(rs.getString("name")), rs.getLong("id"), (existing, id) -> AMBIGUOUS);
+        });
+        return lookup;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // 📄 Row sources: each call returns the next data row, or null at the end of the input
+
+    private RowSource csvRows(InputStream in) throws IOException {
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.registerModule(new JavaTimeModule());
+        csvMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        CsvSchema schema = CsvSchema.emptySchema().withHeader().withArrayElementSeparator(";");
+        MappingIterator<BookImportRowDTO> iterator = csvMapper.readerFor(BookImportRowDTO.class)
+                .with(schema)
+                .readValues(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return () -> {
+            try {
+                if (!iterator.hasNextValue()) {
+                    return null;
+                }
+                return new ParsedRow(iterator.nextValue(), null);
+            } catch (JsonProcessingException e) {
+                return new ParsedRow(null, "Malformed row: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private RowSource ndjsonRows(InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            try {
+                return new ParsedRow(objectMapper.readValue(line, BookImportRowDTO.class), null);
+            } catch (JsonProcessingException e) {
+                return new ParsedRow(null, "Malformed row: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private interface RowSource {
+        ParsedRow next() throws IOException;
+    }
+
+    @AllArgsConstructor
+    private static class ParsedRow {
+        private final BookImportRowDTO row;
+        private final String error;
+    }
+
+    @AllArgsConstructor
+    private static class PendingBook {
+        private final BookImportRowDTO row;
+        private final Set<Long> authorIds;
+        private final Set<Long> genreIds;
+    }
+}
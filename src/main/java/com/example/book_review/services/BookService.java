@@ -4,19 +4,39 @@ import com.example.book_review.dto.*;
 import com.example.book_review.models.Book;
 import com.example.book_review.models.Author;
 import com.example.book_review.models.Genre;
-import com.example.book_review.models.Rating;
 import com.example.book_review.repository.BookRepository;
 import com.example.book_review.repository.AuthorRepository;
 import com.example.book_review.repository.GenreRepository;
+import com.example.book_review.repository.RatingRepository;
+import com.example.book_review.repository.ReviewRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
@@ -30,10 +50,23 @@ public class BookService {
     @Autowired
     private GenreRepository genreRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
     @Autowired
-    private ModelMapper modelMapper;
+    private BookCounters bookCounters;
 
     // ✅ CREATE BOOK
+    @Transactional
     public BookResponseDTO createBook(BookCreateUpdateDTO dto) {
         Book book = new Book();
         book.setTitle(dto.getTitle());
@@ -43,7 +76,7 @@ public class BookService {
 
         // Link genres if provided
         if (dto.getGenreIds() != null && !dto.getGenreIds().isEmpty()) {
-            List<Genre> genres = genreRepository.findAllById(dto.getGenreIds());
+            List<Genre> genres = findGenres(dto.getGenreIds());
             if (genres.size() != dto.getGenreIds().size()) {
                 throw new EntityNotFoundException("One or more genres not found");
             }
@@ -55,7 +88,7 @@ public class BookService {
 
         // Link authors if provided
         if (dto.getAuthorIds() != null && !dto.getAuthorIds().isEmpty()) {
-            List<Author> authors = authorRepository.findAllById(dto.getAuthorIds());
+            List<Author> authors = findAuthors(dto.getAuthorIds());
             if (authors.size() != dto.getAuthorIds().size()) {
                 throw new EntityNotFoundException("One or more authors not found");
             }
@@ -65,14 +98,17 @@ public class BookService {
             }
         }
 
-        Book savedBook = bookRepository.save(book);
+        Book savedBook = bookRepository.saveAndFlush(book);
+        bookRepository.refreshSearchVectors(List.of(savedBook.getId()));
+        bookCounters.adjustAuthors(authorIds(savedBook), 1);
+        bookCounters.adjustGenres(genreIds(savedBook), 1);
+        catalogCache.evictBookGraph(savedBook);
         return mapToBookResponse(savedBook);
     }
 
     // 🔍 GET ALL BOOKS (with pagination) - Return BookSummaryDTO as expected by controller
     public Page<BookSummaryDTO> getAllBooks(Pageable pageable) {
-        Page<Book> books = bookRepository.findAll(pageable);
-        return books.map(this::mapToBookSummary);
+        return bookRepository.findAllSummaries(pageable);
     }
 
     // 🔍 GET ALL BOOKS (without pagination)
@@ -91,69 +127,67 @@ public class BookService {
     //             .collect(Collectors.toList());
     // }
 
-    // 🔍 GET BOOK BY ID - Changed to Long
-    public BookResponseDTO getBookById(Long id) {
-        Book book = bookRepository.findById(id.intValue())
+    // 🔍 GET BOOK BY ID - Changed to Long. Cached per version (see CatalogCache): version is the one the
+    // caller read for its ETag, so the body cached under it was loaded no earlier than that version
+    @Cacheable(cacheNames = CatalogCache.BOOKS, key = "#id + ':' + #version")
+    public BookResponseDTO getBookById(Long id, long version) {
+        Book book = bookRepository.findDetailById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + id));
         return mapToBookResponse(book);
     }
 
-    // 🔍 SEARCH BOOKS BY TITLE - Return List<BookSummaryDTO>
-    public List<BookSummaryDTO> searchBooksByTitle(String title) {
-        List<Book> books = bookRepository.findByTitleContainingIgnoreCase(title);
-        return books.stream()
-                .map(this::mapToBookSummary)
+    // 🏷️ GET BOOK VERSION - ETag/Last-Modified validators, read without loading the book
+    public ResourceVersion getBookVersion(Long id) {
+        return bookRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + id));
+    }
+
+    // 🔍 SEARCH BOOKS - Full-text search over title, author names and description, ranked by relevance
+    public Page<BookSummaryDTO> searchBooks(String query, Pageable pageable) {
+        // Ranking defines the order, so any requested sort is ignored
+        Page<Long> ids = bookRepository.searchIds(query,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        Map<Long, BookSummaryDTO> summaries = ids.isEmpty() ? Map.of()
+                : bookRepository.findSummariesByIdIn(ids.getContent()).stream()
+                        .collect(Collectors.toMap(BookSummaryDTO::getId, Function.identity()));
+        // A ranked row deleted between the two queries has no summary: leave it out rather than return null
+        List<BookSummaryDTO> content = ids.getContent().stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
     }
 
     // 🔍 GET BOOKS BY AUTHOR - New method
-    public List<BookSummaryDTO> getBooksByAuthor(Long authorId) {
-        Author author = authorRepository.findById(authorId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Author not found"));
-        return author.getBooks().stream()
-                .map(this::mapToBookSummary)
-                .collect(Collectors.toList());
+    public Page<BookSummaryDTO> getBooksByAuthor(Long authorId, Pageable pageable) {
+        if (!authorRepository.existsById(authorId)) {
+            throw new EntityNotFoundException("Author not found");
+        }
+        return bookRepository.findSummariesByAuthorId(authorId, pageable);
     }
 
     // 🔍 GET BOOKS BY GENRE - New method
-    public List<BookSummaryDTO> getBooksByGenre(Long genreId) {
-        Genre genre = genreRepository.findById(genreId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Genre not found"));
-        return genre.getBooks().stream()
-                .map(this::mapToBookSummary)
-                .collect(Collectors.toList());
+    public Page<BookSummaryDTO> getBooksByGenre(Long genreId, Pageable pageable) {
+        if (!genreRepository.existsById(genreId)) {
+            throw new EntityNotFoundException("Genre not found");
+        }
+        return bookRepository.findSummariesByGenreId(genreId, pageable);
     }
 
     // 🔍 GET BOOK REVIEWS - New method
-    public List<ReviewSummaryDTO> getBookReviews(Long bookId) {
-        Book book = bookRepository.findById(bookId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found"));
-        return book.getReviews().stream()
-                .map(review -> {
-                    ReviewSummaryDTO dto = new ReviewSummaryDTO();
-                    dto.setId(review.getId());
-                    dto.setComment(review.getComment());
-                    dto.setCreatedAt(review.getCreatedAt());
-                    dto.setUsername(review.getUser().getUsername());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public Page<ReviewSummaryDTO> getBookReviews(Long bookId, Pageable pageable) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found");
+        }
+        return reviewRepository.findSummariesByBookId(bookId, pageable);
     }
 
     // 🔍 GET BOOK RATINGS - New method
-    public List<RatingSummaryDTO> getBookRatings(Long bookId) {
-        Book book = bookRepository.findById(bookId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found"));
-        return book.getRatings().stream()
-                .map(rating -> {
-                    RatingSummaryDTO dto = new RatingSummaryDTO();
-                    dto.setId(rating.getId());
-                    dto.setStars(rating.getStars());
-                    dto.setCreatedAt(rating.getCreatedAt());
-                    dto.setUsername(rating.getUser().getUsername());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public Page<RatingSummaryDTO> getBookRatings(Long bookId, Pageable pageable) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found");
+        }
+        return ratingRepository.findSummariesByBookId(bookId, pageable);
     }
 
     // 🔍 GET BOOKS BY PRICE RANGE
@@ -165,10 +199,16 @@ public class BookService {
     // }
 
     // ✏️ UPDATE BOOK - Changed to Long
+    @Transactional
     public BookResponseDTO updateBook(Long id, BookCreateUpdateDTO dto) {
-        Book existingBook = bookRepository.findById(id.intValue())
+        Book existingBook = bookRepository.findDetailById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + id));
 
+        // Evict under the old links; the new ones are evicted after saving
+        catalogCache.evictBookGraph(existingBook);
+        Set<Long> previousAuthorIds = authorIds(existingBook);
+        Set<Long> previousGenreIds = genreIds(existingBook);
+
         existingBook.setTitle(dto.getTitle());
         existingBook.setDescription(dto.getDescription());
         existingBook.setPrice(dto.getPrice());
@@ -178,7 +218,7 @@ public class BookService {
         if (dto.getGenreIds() != null) {
             existingBook.clearGenres();
             if (!dto.getGenreIds().isEmpty()) {
-                List<Genre> genres = genreRepository.findAllById(dto.getGenreIds());
+                List<Genre> genres = findGenres(dto.getGenreIds());
                 if (genres.size() != dto.getGenreIds().size()) {
                     throw new EntityNotFoundException("One or more genres not found");
                 }
@@ -192,7 +232,7 @@ public class BookService {
         if (dto.getAuthorIds() != null) {
             existingBook.clearAuthors();
             if (!dto.getAuthorIds().isEmpty()) {
-                List<Author> authors = authorRepository.findAllById(dto.getAuthorIds());
+                List<Author> authors = findAuthors(dto.getAuthorIds());
                 if (authors.size() != dto.getAuthorIds().size()) {
                     throw new EntityNotFoundException("One or more authors not found");
                 }
@@ -202,7 +242,11 @@ public class BookService {
             }
         }
 
-        Book updatedBook = bookRepository.save(existingBook);
+        Book updatedBook = bookRepository.saveAndFlush(existingBook);
+        bookRepository.refreshSearchVectors(List.of(updatedBook.getId()));
+        bookCounters.relinkAuthors(previousAuthorIds, authorIds(updatedBook));
+        bookCounters.relinkGenres(previousGenreIds, genreIds(updatedBook));
+        catalogCache.evictBookGraph(updatedBook);
         return mapToBookResponse(updatedBook);
     }
 
@@ -259,10 +303,14 @@ public class BookService {
     // }
 
     // 🗑️ DELETE BOOK - Changed to Long
+    @Transactional
     public void deleteBook(Long id) {
-        Book book = bookRepository.findById(id.intValue())
+        Book book = bookRepository.findDetailById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + id));
 
+        catalogCache.evictBookGraph(book);
+        bookCounters.adjustAuthors(authorIds(book), -1);
+        bookCounters.adjustGenres(genreIds(book), -1);
         book.clearAuthors();
         book.clearGenres();
         bookRepository.delete(book);
@@ -278,29 +326,66 @@ public class BookService {
     //     return bookRepository.count();
     // }
 
-    // 📊 GET HIGHEST RATED BOOKS
-    // public List<BookResponseDTO> getHighestRatedBooks(int limit) {
-    //     List<Book> books = bookRepository.findAll();
-    //     return books.stream()
-    //             .sorted((b1, b2) -> Double.compare(calculateAverageRating(b2), calculateAverageRating(b1)))
-    //             .limit(limit)
-    //             .map(this::mapToBookResponse)
-    //             .collect(Collectors.toList());
-    // }
+    // 🔄 REBUILD RATING AGGREGATES (backfill / repair of the denormalized columns on Book)
+    @Transactional
+    public int rebuildRatingStats() {
+        return bookRepository.rebuildAllRatingStats();
+    }
+
+    // 🔄 REBUILD BOOK COUNTERS (repair of the denormalized book_count on Author and Genre)
+    @Transactional
+    public int rebuildBookCounts() {
+        return bookCounters.rebuild();
+    }
 
-    // 🔄 HELPER METHOD: Calculate average rating
-    private double calculateAverageRating(Book book) {
-        if (book.getRatings().isEmpty()) {
-            return 0.0;
+    // 📤 EXPORT CATALOG - Writes every book as NDJSON straight from the database cursor, so memory use
+    // does not grow with the catalog size
+    @Transactional(readOnly = true)
+    public void exportCatalog(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<String> rows = bookRepository.streamCatalogExport()) {
+            Iterator<String> it = rows.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+                writer.write('\n');
+            }
         }
-        return book.getRatings().stream()
-                .mapToDouble(Rating::getStars)
-                .average()
-                .orElse(0.0);
+        writer.flush();
+    }
+
+    // 🔄 HELPER METHODS: Resolve genres/authors through a multi-load, which serves each id from the second-level
+    // cache when present and fetches the misses in one IN query (findAllById always goes to the database).
+    // Unknown ids are left out.
+    private List<Genre> findGenres(List<Long> ids) {
+        return multiLoad(Genre.class, ids);
+    }
+
+    private List<Author> findAuthors(List<Long> ids) {
+        return multiLoad(Author.class, ids);
+    }
+
+    private <T> List<T> multiLoad(Class<T> entity, List<Long> ids) {
+        // Cache and session checks are off unless requested explicitly
+        return entityManager.unwrap(Session.class).byMultipleIds(entity)
+                .with(CacheMode.NORMAL)
+                .enableSessionCheck(true)
+                .multiLoad(ids.stream().distinct().toList())
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // 🔄 HELPER METHODS: Ids of the authors/genres linked to a book
+    private Set<Long> authorIds(Book book) {
+        return book.getAuthors().stream().map(Author::getId).collect(Collectors.toSet());
+    }
+
+    private Set<Long> genreIds(Book book) {
+        return book.getGenres().stream().map(Genre::getId).collect(Collectors.toSet());
     }
 
-    // 🔄 HELPER METHOD: Map Entity to Response DTO
-    private BookResponseDTO mapToBookResponse(Book book) {
+    // 🔄 HELPER METHOD: Map Entity to Response DTO (package-private for ServiceMappingBenchmark)
+    BookResponseDTO mapToBookResponse(Book book) {
         BookResponseDTO dto = new BookResponseDTO();
         dto.setId(book.getId());
         dto.setTitle(book.getTitle());
@@ -318,21 +403,24 @@ public class BookService {
                 .collect(Collectors.toList());
         dto.setAuthors(authorSummaries);
 
-        dto.setAverageRating(calculateAverageRating(book));
+        dto.setAverageRating(book.getAverageRating());
+        dto.setTotalRatings(book.getRatingCount());
+        dto.setRatingDistribution(book.getRatingDistribution());
         dto.setTotalReviews(book.getReviews().size());
 
         return dto;
     }
 
-    // 🔄 HELPER METHOD: Map Entity to Summary DTO
-    private BookSummaryDTO mapToBookSummary(Book book) {
+    // 🔄 HELPER METHOD: Map Entity to Summary DTO (package-private for ServiceMappingBenchmark)
+    BookSummaryDTO mapToBookSummary(Book book) {
         BookSummaryDTO dto = new BookSummaryDTO();
         dto.setId(book.getId());
         dto.setTitle(book.getTitle());
         dto.setAuthor(book.getAuthor());
         dto.setPrice(book.getPrice());
         dto.setPublishedDate(book.getPublishedDate());
-        dto.setAverageRating(calculateAverageRating(book));
+        dto.setAverageRating(book.getAverageRating());
+        dto.setTotalRatings(book.getRatingCount());
         return dto;
     }
 }
@@ -0,0 +1,84 @@
+package com.example.book_review.services;
+
+import com.example.book_review.models.Author;
+import com.example.book_review.models.Book;
+import com.example.book_review.models.Genre;
+import com.example.book_review.repository.AuthorRepository;
+import com.example.book_review.repository.BookRepository;
+import com.example.book_review.repository.GenreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Names and eviction helpers for the detail-response caches filled by @Cacheable on
+// BookService.getBookById, AuthorService.getAuthorById and GenreService.getGenreById.
+// Keys are "id:version", with the version the controller read for the ETag. Evicting a response bumps the
+// entity's version column, which backs the ETag/Last-Modified headers: later reads use a new key, so a body
+// loaded before the change can never be served under the newer ETag. Superseded entries age out of the cache.
+@Component
+public class CatalogCache {
+
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+    public static final String GENRES = "genres";
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    public void evictBook(long bookId) {
+        evictBooks(List.of(bookId));
+    }
+
+    public void evictBooks(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        bookRepository.bumpVersions(bookIds, LocalDateTime.now());
+    }
+
+    public void evictAuthor(long authorId) {
+        evictAuthors(List.of(authorId));
+    }
+
+    public void evictAuthors(Collection<Long> authorIds) {
+        if (authorIds.isEmpty()) {
+            return;
+        }
+        authorRepository.bumpVersions(authorIds, LocalDateTime.now());
+    }
+
+    public void evictGenre(long genreId) {
+        evictGenres(List.of(genreId));
+    }
+
+    public void evictGenres(Collection<Long> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        genreRepository.bumpVersions(genreIds, LocalDateTime.now());
+    }
+
+    // A book response embeds its authors and genres, and author/genre responses embed their books,
+    // so a change to the book or its links invalidates all of them
+    public void evictBookGraph(Book book) {
+        evictBookGraphs(List.of(book));
+    }
+
+    public void evictBookGraphs(Collection<Book> books) {
+        evictBooks(books.stream().map(Book::getId).collect(Collectors.toSet()));
+        evictAuthors(books.stream().flatMap(book -> book.getAuthors().stream())
+                .map(Author::getId).collect(Collectors.toSet()));
+        evictGenres(books.stream().flatMap(book -> book.getGenres().stream())
+                .map(Genre::getId).collect(Collectors.toSet()));
+    }
+}
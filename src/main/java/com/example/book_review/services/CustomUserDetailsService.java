@@ -2,55 +2,87 @@ package com.example.book_review.services;
 
 import com.example.book_review.models.User;
 import com.example.book_review.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private static final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
+
     @Autowired
     private UserRepository userRepository;
 
+    private final Cache<String, UserDetails> cache;
+
+    // Every authenticated request resolves its user here, so keep recently seen users in memory
+    public CustomUserDetailsService(@Value("${security.user-cache.max-size:10000}") long maxSize,
+                                    @Value("${security.user-cache.ttl:300}") long ttlSeconds,
+                                    MeterRegistry meterRegistry) {
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(), "users");
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        System.out.println("=== CustomUserDetailsService.loadUserByUsername() ===");
-        System.out.println("Attempting to load user: " + username);
+        UserDetails cached = cache.get(username, this::loadFromDatabase);
+        // Hand out a copy: the authentication manager erases credentials on the instance it receives
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+    }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    System.out.println("User not found: " + username);
-                    return new UsernameNotFoundException("User not found: " + username);
-                });
+    // Drop a cached user after their role, password or existence changes
+    public void evict(String username) {
+        cache.invalidate(username);
+        // A request racing the transaction could re-cache the old row, so evict again once it commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
 
-        System.out.println("User found successfully:");
-        System.out.println("- Username: " + user.getUsername());
-        System.out.println("- Email: " + user.getEmail());
-        System.out.println("- Role: " + user.getRole().getName());
-        System.out.println("- Password hash: " + user.getPassword().substring(0, 20) + "...");
+    private UserDetails loadFromDatabase(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         List<GrantedAuthority> authorities = new ArrayList<>();
         // Add ROLE_ prefix for Spring Security
         authorities.add(new SimpleGrantedAuthority("ROLE_" + user.getRole().getName()));
 
-        System.out.println("- Final role name: ROLE_" + user.getRole().getName());
+        log.debug("Loaded user {} with authorities {}", user.getUsername(), authorities);
 
-        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+        return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
                 .password(user.getPassword())
                 .authorities(authorities)
                 .build();
-
-        System.out.println("UserDetails created successfully with authorities: " + userDetails.getAuthorities());
-        System.out.println("=== End CustomUserDetailsService ===");
-
-        return userDetails;
     }
 }
@@ -3,13 +3,15 @@ package com.example.book_review.services;
 import com.example.book_review.dto.*;
 import com.example.book_review.models.Book;
 import com.example.book_review.models.Genre;
+import com.example.book_review.repository.BookRepository;
 import com.example.book_review.repository.GenreRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,7 +23,10 @@ public class GenreService {
     private GenreRepository genreRepo;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private BookRepository bookRepo;
+
+    @Autowired
+    private CatalogCache catalogCache;
 
     public GenreResponseDTO createGenre(GenreCreateUpdateDTO dto) {
         if (genreRepo.existsByNameIgnoreCase(dto.getName())) {
@@ -36,11 +41,12 @@ public class GenreService {
         return mapToGenreResponse(saved);
     }
 
+    @Transactional
     public GenreResponseDTO updateGenre(Long genreId, GenreCreateUpdateDTO dto) {
-        Genre genre = genreRepo.findById(genreId.intValue())
+        Genre genre = genreRepo.findByIdWithBooks(genreId)
                 .orElseThrow(() -> new EntityNotFoundException("Genre not found"));
 
-        if (genreRepo.existsByNameIgnoreCaseAndIdNot(dto.getName(), genreId.intValue())) {
+        if (genreRepo.existsByNameIgnoreCaseAndIdNot(dto.getName(), genreId)) {
             throw new IllegalArgumentException("Another genre with this name already exists");
         }
 
@@ -48,22 +54,29 @@ public class GenreService {
         genre.setDescription(dto.getDescription());
 
         Genre updated = genreRepo.save(genre);
+        // Book responses embed the genre name
+        catalogCache.evictGenre(updated.getId());
+        catalogCache.evictBooks(updated.getBooks().stream().map(Book::getId).toList());
         return mapToGenreResponse(updated);
     }
 
+    @Transactional
     public void deleteGenre(Long genreId) {
-        Genre genre = genreRepo.findById(genreId.intValue())
+        Genre genre = genreRepo.findById(genreId)
                 .orElseThrow(() -> new EntityNotFoundException("Genre not found"));
 
-        if (!genre.getBooks().isEmpty()) {
+        if (genre.getBookCount() > 0) {
             throw new IllegalArgumentException("Cannot delete genre that has associated books. Remove books first.");
         }
 
         genreRepo.delete(genre);
+        catalogCache.evictGenre(genre.getId());
     }
 
-    public GenreResponseDTO getGenreById(Long genreId) {
-        Genre genre = genreRepo.findById(genreId.intValue())
+    // Cached per version, like BookService.getBookById
+    @Cacheable(cacheNames = CatalogCache.GENRES, key = "#genreId + ':' + #version")
+    public GenreResponseDTO getGenreById(Long genreId, long version) {
+        Genre genre = genreRepo.findById(genreId)
                 .orElseThrow(() -> new EntityNotFoundException("Genre not found"));
         return mapToGenreResponse(genre);
     }
@@ -73,6 +86,16 @@ public class GenreService {
         return genres.map(this::mapToGenreSummary);
     }
 
+    // ETag/Last-Modified validators, read without loading any genre
+    public ResourceVersion getGenresVersion() {
+        return genreRepo.findCollectionVersion();
+    }
+
+    public ResourceVersion getGenreVersion(Long genreId) {
+        return genreRepo.findVersionById(genreId)
+                .orElseThrow(() -> new EntityNotFoundException("Genre not found"));
+    }
+
     public List<GenreSummaryDTO> searchGenresByName(String name) {
         List<Genre> genres = genreRepo.findByNameContainingIgnoreCaseOrderByName(name);
         return genres.stream()
@@ -80,26 +103,21 @@ public class GenreService {
                 .collect(Collectors.toList());
     }
 
-    public List<BookSummaryDTO> getGenreBooks(Long id) {
-        Genre genre = genreRepo.findById(id.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Genre not found"));
-        return genre.getBooks().stream()
-                .map(book -> {
-                    BookSummaryDTO dto = new BookSummaryDTO();
-                    dto.setId(book.getId());
-                    dto.setTitle(book.getTitle());
-                    dto.setAuthor(book.getAuthor());
-                    dto.setPrice(book.getPrice());
-                    dto.setPublishedDate(book.getPublishedDate());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public Page<BookSummaryDTO> getGenreBooks(Long id, Pageable pageable) {
+        if (!genreRepo.existsById(id)) {
+            throw new EntityNotFoundException("Genre not found");
+        }
+        return bookRepo.findSummariesByGenreId(id, pageable);
     }
 
-    private GenreResponseDTO mapToGenreResponse(Genre genre) {
-        GenreResponseDTO dto = modelMapper.map(genre, GenreResponseDTO.class);
-        dto.setBookCount(genre.getBooks().size());
-        dto.setBooks(null); // Don't include full book details in basic response
+    // Package-private for ResponseMappingTest
+    GenreResponseDTO mapToGenreResponse(Genre genre) {
+        GenreResponseDTO dto = new GenreResponseDTO();
+        dto.setId(genre.getId());
+        dto.setName(genre.getName());
+        dto.setDescription(genre.getDescription());
+        dto.setBookCount((int) genre.getBookCount());
+        // books stays null: don't include full book details in basic response
         return dto;
     }
 
@@ -0,0 +1,133 @@
+package com.example.book_review.services;
+
+import com.example.book_review.dto.BookSummaryDTO;
+import com.example.book_review.dto.LeaderboardDTO;
+import com.example.book_review.repository.BookRepository;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Top-rated, most-reviewed and trending leaderboards, catalog-wide and per genre. A scheduled job ranks the
+// books in SQL and swaps in a new in-memory snapshot of ready-made entries; requests only slice that snapshot.
+@Service
+public class LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    // Key of the catalog-wide board in a snapshot
+    private static final long ALL_GENRES = 0L;
+
+    // Ids per findSummariesByIdIn call, well below the bind-parameter limit
+    private static final int SUMMARY_BATCH = 1000;
+
+    public enum Board {
+        TOP_RATED, MOST_REVIEWED, TRENDING;
+
+        // "top-rated" -> TOP_RATED
+        public static Board fromPath(String path) {
+            try {
+                return valueOf(path.toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown leaderboard: " + path);
+            }
+        }
+
+        public String path() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Value("${leaderboard.size:100}")
+    private int size;
+
+    @Value("${leaderboard.bayesian-prior-votes:10}")
+    private double priorVotes;
+
+    @Value("${leaderboard.trending-window:7d}")
+    private Duration trendingWindow;
+
+    @Value("${leaderboard.trending-half-life:24h}")
+    private Duration trendingHalfLife;
+
+    private volatile Snapshot snapshot = new Snapshot(new EnumMap<>(Board.class), null);
+
+    public LeaderboardDTO getLeaderboard(Board board, Long genreId, Integer limit) {
+        int count = limit == null ? Math.min(10, size) : limit;
+        if (count < 1 || count > size) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + size);
+        }
+        Snapshot current = snapshot;
+        List<LeaderboardDTO.Entry> entries = current.boards
+                .getOrDefault(board, Map.of())
+                .getOrDefault(genreId == null ? ALL_GENRES : genreId, List.of());
+        return new LeaderboardDTO(board.path(), genreId, current.refreshedAt,
+                entries.subList(0, Math.min(count, entries.size())));
+    }
+
+    // 🔄 REFRESH - Ranks every board in SQL and builds all entries up front, then publishes them at once
+    @Scheduled(fixedDelayString = "${leaderboard.refresh-interval:5m}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Board, List<BookRepository.RankedBook>> ranked = new EnumMap<>(Board.class);
+        ranked.put(Board.TOP_RATED, bookRepository.rankTopRated(priorVotes, size));
+        ranked.put(Board.MOST_REVIEWED, bookRepository.rankMostReviewed(size));
+        ranked.put(Board.TRENDING, bookRepository.rankTrending(now, now.minus(trendingWindow),
+                trendingHalfLife.toSeconds(), size));
+
+        Set<Long> bookIds = new LinkedHashSet<>();
+        ranked.values().forEach(rows -> rows.forEach(row -> bookIds.add(row.getBookId())));
+        Map<Long, BookSummaryDTO> summaries = new HashMap<>();
+        List<Long> ids = new ArrayList<>(bookIds);
+        for (int from = 0; from < ids.size(); from += SUMMARY_BATCH) {
+            bookRepository.findSummariesByIdIn(ids.subList(from, Math.min(from + SUMMARY_BATCH, ids.size())))
+                    .forEach(summary -> summaries.put(summary.getId(), summary));
+        }
+
+        Map<Board, Map<Long, List<LeaderboardDTO.Entry>>> boards = new EnumMap<>(Board.class);
+        ranked.forEach((board, rows) -> {
+            Map<Long, List<LeaderboardDTO.Entry>> byGenre = new HashMap<>();
+            for (BookRepository.RankedBook row : rows) {
+                // A ranked book deleted between the two queries has no summary: leave it out, and the
+                // ranks after it close up because each rank is taken from the entries kept so far
+                BookSummaryDTO book = summaries.get(row.getBookId());
+                if (book == null) {
+                    continue;
+                }
+                List<LeaderboardDTO.Entry> entries = byGenre.computeIfAbsent(
+                        row.getGenreId() == null ? ALL_GENRES : row.getGenreId(), genre -> new ArrayList<>());
+                entries.add(new LeaderboardDTO.Entry(entries.size() + 1, row.getScore(), book));
+            }
+            boards.put(board, byGenre);
+        });
+        snapshot = new Snapshot(boards, now);
+        log.debug("Leaderboards refreshed: {} books ranked in {} ms", bookIds.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @AllArgsConstructor
+    private static class Snapshot {
+        private final Map<Board, Map<Long, List<LeaderboardDTO.Entry>>> boards;
+        private final LocalDateTime refreshedAt;
+    }
+}
@@ -8,15 +8,16 @@ import com.example.book_review.repository.BookRepository;
 import com.example.book_review.repository.RatingRepository;
 import com.example.book_review.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class RatingService {
@@ -31,107 +32,121 @@ public class RatingService {
     private BookRepository bookRepo;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private SequenceIdAllocator idAllocator;
 
     public Page<RatingSummaryDTO> getAllRatings(Pageable pageable) {
         Page<Rating> ratings = ratingRepo.findAll(pageable);
         return ratings.map(this::mapToRatingSummary);
     }
 
+    // Keyset pagination on (createdAt, id): every slice costs the same as the first, whatever its depth
+    public CursorPage<RatingSummaryDTO> getRatingFeed(String cursor, Integer size) {
+        int limit = FeedCursor.limit(size);
+        // One extra row tells whether another slice follows
+        List<RatingSummaryDTO> rows;
+        if (cursor == null) {
+            rows = ratingRepo.findFeed(Limit.of(limit + 1));
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            rows = ratingRepo.findFeedAfter(after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        }
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<RatingSummaryDTO> content = rows.subList(0, limit);
+        RatingSummaryDTO last = content.get(limit - 1);
+        return new CursorPage<>(content, new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
     public RatingResponseDTO getRatingById(Long id) {
-        Rating rating = ratingRepo.findById(id.intValue())
+        Rating rating = ratingRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Rating not found"));
         return mapToRatingResponse(rating);
     }
 
+    // One upsert statement creates or replaces the user's rating and moves the book aggregate, so concurrent
+    // requests from the same user cannot create duplicates
+    @Transactional
     public RatingResponseDTO createRating(RatingCreateUpdateDTO dto, String username) {
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        Book book = bookRepo.findById(dto.getBookId())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found"));
-
-        // Check if user already rated this book
-        Optional<Rating> existingRating = ratingRepo.findByUserAndBook(user, book);
-
-        Rating rating;
-        if (existingRating.isPresent()) {
-            rating = existingRating.get();
-            rating.setStars(dto.getStars());
-        } else {
-            rating = new Rating();
-            rating.setStars(dto.getStars());
-            rating.setUser(user);
-            rating.setBook(book);
+        long id = idAllocator.nextId("rating_seq");
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Rating> saved = ratingRepo.upsert(id, username, dto.getBookId(), dto.getStars(), now);
+        if (saved.isEmpty()) {
+            // Lost an insert race with a concurrent request: the rating now exists and the retry replaces it
+            saved = ratingRepo.upsert(id, username, dto.getBookId(), dto.getStars(), now);
         }
-
-        Rating saved = ratingRepo.save(rating);
-        return mapToRatingResponse(saved);
+        Rating rating = saved.orElseThrow(() -> new EntityNotFoundException(
+                userRepo.existsByUsername(username) ? "Book not found" : "User not found"));
+        catalogCache.evictBook(dto.getBookId());
+        return mapToRatingResponse(rating);
     }
 
+    @Transactional
     public RatingResponseDTO updateRating(Long id, RatingCreateUpdateDTO dto, String username) {
-        Rating rating = ratingRepo.findById(id.intValue())
+        Rating rating = ratingRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Rating not found"));
 
         if (!rating.getUser().getUsername().equals(username)) {
             throw new IllegalArgumentException("You can only update your own ratings");
         }
 
+        long bookId = rating.getBook().getId();
+        bookRepo.adjustRatingStats(bookId, rating.getStars(), -1);
         rating.setStars(dto.getStars());
-        Rating updated = ratingRepo.save(rating);
+        Rating updated = ratingRepo.saveAndFlush(rating);
+        bookRepo.adjustRatingStats(bookId, updated.getStars(), 1);
+        catalogCache.evictBook(bookId);
         return mapToRatingResponse(updated);
     }
 
+    @Transactional
     public void deleteRating(Long id, String username) {
-        Rating rating = ratingRepo.findById(id.intValue())
+        Rating rating = ratingRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Rating not found"));
 
         if (!rating.getUser().getUsername().equals(username)) {
             throw new IllegalArgumentException("You can only delete your own ratings");
         }
 
+        bookRepo.adjustRatingStats(rating.getBook().getId(), rating.getStars(), -1);
         ratingRepo.delete(rating);
+        catalogCache.evictBook(rating.getBook().getId());
     }
 
-    public List<RatingSummaryDTO> getRatingsByBook(Long bookId) {
-        Book book = bookRepo.findById(bookId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found"));
-
-        return ratingRepo.findByBookOrderByCreatedAtDesc(book).stream()
-                .map(this::mapToRatingSummary)
-                .collect(Collectors.toList());
+    public Page<RatingSummaryDTO> getRatingsByBook(Long bookId, Pageable pageable) {
+        if (!bookRepo.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found");
+        }
+        return ratingRepo.findSummariesByBookId(bookId, pageable);
     }
 
     public Double getAverageRatingForBook(Long bookId) {
-        Book book = bookRepo.findById(bookId.intValue())
+        Book book = bookRepo.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found"));
 
-        return ratingRepo.findAverageRatingByBook(book);
+        // Same contract as AVG(): null when the book has no ratings
+        return book.getRatingCount() == 0 ? null : book.getAverageRating();
     }
 
-    public List<RatingSummaryDTO> getRatingsByUser(Long userId) {
-        User user = userRepo.findById(userId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        return ratingRepo.findByUserOrderByCreatedAtDesc(user).stream()
-                .map(this::mapToRatingSummary)
-                .collect(Collectors.toList());
+    public Page<RatingSummaryDTO> getRatingsByUser(Long userId, Pageable pageable) {
+        if (!userRepo.existsById(userId)) {
+            throw new EntityNotFoundException("User not found");
+        }
+        return ratingRepo.findSummariesByUserId(userId, pageable);
     }
 
-    public List<RatingSummaryDTO> getRatingsByUsername(String username) {
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        return ratingRepo.findByUserOrderByCreatedAtDesc(user).stream()
-                .map(this::mapToRatingSummary)
-                .collect(Collectors.toList());
+    public Page<RatingSummaryDTO> getRatingsByUsername(String username, Pageable pageable) {
+        return ratingRepo.findSummariesByUsername(username, pageable);
     }
 
     public RatingResponseDTO getUserRatingForBook(Long bookId, String username) {
         User user = userRepo.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
-        Book book = bookRepo.findById(bookId.intValue())
+        Book book = bookRepo.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found"));
 
         Rating rating = ratingRepo.findByUserAndBook(user, book)
@@ -140,8 +155,13 @@ public class RatingService {
         return mapToRatingResponse(rating);
     }
 
-    private RatingResponseDTO mapToRatingResponse(Rating rating) {
-        RatingResponseDTO dto = modelMapper.map(rating, RatingResponseDTO.class);
+    // Package-private for ServiceMappingBenchmark and ResponseMappingTest
+    RatingResponseDTO mapToRatingResponse(Rating rating) {
+        RatingResponseDTO dto = new RatingResponseDTO();
+        dto.setId(rating.getId());
+        dto.setStars(rating.getStars());
+        dto.setCreatedAt(rating.getCreatedAt());
+        dto.setUpdatedAt(rating.getUpdatedAt());
 
         UserSummaryDTO userDTO = new UserSummaryDTO(
                 rating.getUser().getId(),
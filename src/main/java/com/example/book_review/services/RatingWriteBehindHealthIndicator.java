@@ -0,0 +1,28 @@
+package com.example.book_review.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// "ratingWriteBehind" entry of /actuator/health: DOWN once the writer thread has died, since accepted ratings
+// would then only pile up in the journal. A failing batch is reported but keeps the status UP while it is retried.
+@Component
+@ConditionalOnProperty(name = "ratings.write-behind.enabled", havingValue = "true")
+public class RatingWriteBehindHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private RatingWriteBehindQueue queue;
+
+    @Override
+    public Health health() {
+        Health.Builder health = queue.isWriterAlive() ? Health.up() : Health.down();
+        health.withDetail("queued", queue.queuedRatings());
+        String lastFailure = queue.lastFailure();
+        if (lastFailure != null) {
+            health.withDetail("lastFailure", lastFailure);
+        }
+        return health.build();
+    }
+}
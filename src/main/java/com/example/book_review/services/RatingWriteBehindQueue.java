@@ -0,0 +1,449 @@
+package com.example.book_review.services;
+
+import com.example.book_review.dto.RatingCreateUpdateDTO;
+import com.example.book_review.repository.BookRepository;
+import com.example.book_review.repository.RatingJournalProgressRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind path for rating creation (ratings.write-behind.enabled=true). A request is validated, appended
+// to a local journal and fsynced, put on a bounded queue and acknowledged; a single writer thread drains the
+// queue and applies each batch as one multi-row upsert that also adjusts the books' rating aggregates.
+// Each batch transaction also advances the journal's applied sequence in rating_journal_progress, so the database
+// alone says which records are in it; on startup, records past that sequence are queued again and an accepted
+// rating survives a crash, while an applied one is never replayed over a later update or delete. Once the
+// journal grows past ratings.write-behind.journal-compact-size, it is rewritten with only the unapplied records.
+@Service
+@ConditionalOnProperty(name = "ratings.write-behind.enabled", havingValue = "true")
+public class RatingWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingWriteBehindQueue.class);
+
+    private static final String JOURNAL = "journal";
+    // Marker lines of journals written before the applied sequence moved to the database
+    private static final String APPLIED = "applied";
+
+    // Inserts or overwrites each (user, book) rating and applies the net change to the rating aggregates:
+    // +1 for every stored rating and -1 for every rating it replaced (locked first, so its stars are current).
+    // A rating inserted concurrently after the statement started is left alone, since its stars were not seen;
+    // the statement returns how many rows it skipped and the books it touched. Running it again is harmless.
+    private static final String UPSERT_BATCH = """
+            WITH incoming AS (
+                SELECT * FROM unnest(?::bigint[], ?::text[], ?::bigint[], ?::int[], ?::timestamp[])
+                    AS t(id, username, book_id, stars, accepted_at)
+            ), resolved AS (
+                SELECT i.id, u.id AS user_id, i.book_id, i.stars, i.accepted_at
+                FROM incoming i
+                JOIN users u ON u.username = i.username
+                JOIN book b ON b.id = i.book_id
+            ), previous AS (
+                SELECT r.user_id, r.book_id, r.stars
+                FROM rating r
+                JOIN resolved x ON x.user_id = r.user_id AND x.book_id = r.book_id
+                FOR UPDATE OF r
+            ), upserted AS (
+                -- Joined to "previous" so each existing row is locked (and read at its latest version) before
+                -- it is overwritten; locking a row this statement already updated would skip it
+                INSERT INTO rating (id, stars, user_id, book_id, created_at, version)
+                SELECT x.id, x.stars, x.user_id, x.book_id, x.accepted_at, 0
+                FROM resolved x
+                LEFT JOIN previous p ON p.user_id = x.user_id AND p.book_id = x.book_id
+                ON CONFLICT (user_id, book_id) DO UPDATE
+                    SET stars = EXCLUDED.stars, updated_at = EXCLUDED.created_at, version = rating.version + 1
+                    WHERE EXISTS (SELECT 1 FROM previous p
+                                  WHERE p.user_id = rating.user_id AND p.book_id = rating.book_id)
+                RETURNING book_id, stars
+            ), changes AS (
+                SELECT book_id, stars, 1 AS delta FROM upserted
+                UNION ALL
+                SELECT book_id, stars, -1 FROM previous
+            ), deltas AS (
+                SELECT book_id,
+                    SUM(delta) AS delta,
+                    SUM(stars * delta) AS stars_delta,
+                    SUM(CASE WHEN stars = 1 THEN delta ELSE 0 END) AS one_star,
+                    SUM(CASE WHEN stars = 2 THEN delta ELSE 0 END) AS two_star,
+                    SUM(CASE WHEN stars = 3 THEN delta ELSE 0 END) AS three_star,
+                    SUM(CASE WHEN stars = 4 THEN delta ELSE 0 END) AS four_star,
+                    SUM(CASE WHEN stars = 5 THEN delta ELSE 0 END) AS five_star
+                FROM changes
+                GROUP BY book_id
+            ), stats AS (
+                UPDATE book b SET
+                    rating_count = b.rating_count + d.delta,
+                    rating_sum = b.rating_sum + d.stars_delta,
+                    one_star_count = b.one_star_count + d.one_star,
+                    two_star_count = b.two_star_count + d.two_star,
+                    three_star_count = b.three_star_count + d.three_star,
+                    four_star_count = b.four_star_count + d.four_star,
+                    five_star_count = b.five_star_count + d.five_star
+                FROM deltas d
+                WHERE b.id = d.book_id
+                RETURNING b.id
+            )
+            SELECT (SELECT COUNT(*) FROM resolved) - (SELECT COUNT(*) FROM upserted), ARRAY(SELECT id FROM stats)
+            """;
+
+    @Autowired
+    private BookRepository bookRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RatingJournalProgressRepository progressRepo;
+
+    @Autowired
+    private SequenceIdAllocator idAllocator;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Value("${ratings.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${ratings.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ratings.write-behind.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    @Value("${ratings.write-behind.journal:data/ratings.journal}")
+    private Path journalPath;
+
+    @Value("${ratings.write-behind.journal-compact-size:16MB}")
+    private DataSize compactSize;
+
+    private BlockingQueue<PendingRating> queue;
+    private String journalId;
+    private volatile FileChannel journal;
+    private long lastSequence;
+    private long appliedSequence;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile String lastFailure;
+
+    @PostConstruct
+    void openJournal() throws IOException {
+        queue = new ArrayBlockingQueue<>(capacity);
+        if (journalPath.getParent() != null) {
+            Files.createDirectories(journalPath.getParent());
+        }
+        List<PendingRating> unapplied = readJournal();
+        if (journalId == null) {
+            journalId = UUID.randomUUID().toString();
+        }
+        appliedSequence = Math.max(appliedSequence, progressRepo.findAppliedSequence(journalId).orElse(0L));
+        lastSequence = Math.max(lastSequence, appliedSequence);
+        unapplied.removeIf(rating -> rating.sequence <= appliedSequence);
+        // Replayed ratings go first, ahead of anything accepted after startup; the queue grows if needed
+        if (unapplied.size() > capacity) {
+            queue = new ArrayBlockingQueue<>(unapplied.size() + capacity);
+        }
+        queue.addAll(unapplied);
+        rewriteJournal(unapplied);
+        if (!unapplied.isEmpty()) {
+            log.info("Replaying {} unapplied ratings from {}", unapplied.size(), journalPath);
+        }
+    }
+
+    // The unique (user_id, book_id) index the upsert relies on is created by schema.sql, which runs late in
+    // startup; the writer waits for the application to be ready
+    @EventListener(ApplicationReadyEvent.class)
+    void startWriter() {
+        running = true;
+        writer = new Thread(this::drainLoop, "rating-write-behind");
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws Exception {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        journal.close();
+    }
+
+    // Validates and durably accepts a rating; false when the queue is full and the caller should retry later
+    public boolean accept(RatingCreateUpdateDTO dto, String username) {
+        if (!bookRepo.existsById(dto.getBookId())) {
+            throw new EntityNotFoundException("Book not found");
+        }
+        PendingRating rating;
+        synchronized (this) {
+            if (queue.remainingCapacity() == 0) {
+                return false;
+            }
+            rating = new PendingRating(++lastSequence, username, dto.getBookId(), dto.getStars(), LocalDateTime.now());
+            append(format(rating));
+            queue.add(rating);
+        }
+        // fsync outside the lock so concurrent requests share the disk flush
+        force();
+        return true;
+    }
+
+    public int queuedRatings() {
+        return queue.size();
+    }
+
+    // Reported by RatingWriteBehindHealthIndicator
+    public boolean isWriterAlive() {
+        return writer != null && writer.isAlive();
+    }
+
+    // Exception type of the last failed batch, or null once a batch has been applied since. Only the type: the
+    // message can carry SQL and usernames, and the health endpoint is public
+    public String lastFailure() {
+        return lastFailure;
+    }
+
+    private void drainLoop() {
+        List<PendingRating> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    PendingRating first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                long applied = batch.get(batch.size() - 1).sequence;
+                write(batch, applied);
+                // Committed: the batch must not be written again, even if compacting the journal fails
+                batch.clear();
+                lastFailure = null;
+                markApplied(applied);
+            } catch (InterruptedException e) {
+                // Shutdown: keep draining what is queued; the loop ends once the queue is empty
+                running = false;
+            } catch (RuntimeException e) {
+                // Any failure (database, connection pool, journal I/O) must not end the only writer thread.
+                // The batch stays journaled and is retried; nothing accepted is dropped, and rewriting a batch
+                // that was applied but not marked is harmless
+                Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+                lastFailure = cause.getClass().getName();
+                log.warn("Rating write-behind batch of {} failed, retrying: {}", batch.size(), cause.toString());
+                if (!running) {
+                    log.warn("Stopping with {} ratings left in the journal for the next start",
+                            batch.size() + queue.size());
+                    return;
+                }
+                sleepQuietly(flushInterval);
+            }
+        }
+    }
+
+    private void write(List<PendingRating> batch, long sequence) {
+        // One row per (user, book): the statement cannot touch the same rating twice, and the latest wins
+        Map<String, PendingRating> latest = new LinkedHashMap<>();
+        for (PendingRating rating : batch) {
+            latest.put(rating.username + "\t" + rating.bookId, rating);
+        }
+        List<PendingRating> rows = new ArrayList<>(latest.values());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // A commit that failed only in reporting back has already applied the batch
+            if (progressRepo.findAppliedSequence(journalId).orElse(0L) >= sequence) {
+                return;
+            }
+            List<Long> ids = idAllocator.allocate("rating_seq", rows.size());
+            Set<Long> bookIds = new LinkedHashSet<>();
+            long skipped;
+            do {
+                skipped = upsertBatch(rows, ids, bookIds);
+            } while (skipped > 0);
+            catalogCache.evictBooks(bookIds);
+            progressRepo.advance(journalId, sequence);
+        });
+        log.debug("Rating write-behind flushed {} ratings ({} queued)", rows.size(), queue.size());
+    }
+
+    // Runs UPSERT_BATCH once, collecting the touched book ids; returns the number of skipped rows
+    private long upsertBatch(List<PendingRating> rows, List<Long> ids, Set<Long> bookIds) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_BATCH)) {
+                statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                statement.setArray(2, connection.createArrayOf("text",
+                        rows.stream().map(r -> r.username).toArray()));
+                statement.setArray(3, connection.createArrayOf("bigint",
+                        rows.stream().map(r -> r.bookId).toArray()));
+                statement.setArray(4, connection.createArrayOf("integer",
+                        rows.stream().map(r -> r.stars).toArray()));
+                statement.setArray(5, connection.createArrayOf("timestamp",
+                        rows.stream().map(r -> Timestamp.valueOf(r.acceptedAt)).toArray()));
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    bookIds.addAll(List.of((Long[]) rs.getArray(2).getArray()));
+                    return rs.getLong(1);
+                }
+            }
+        });
+    }
+
+    private synchronized void markApplied(long sequence) {
+        appliedSequence = sequence;
+        try {
+            if (journal.size() >= compactSize.toBytes()) {
+                // Everything up to the applied sequence is in the database; the queue holds the rest
+                rewriteJournal(new ArrayList<>(queue));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact the rating journal", e);
+        }
+    }
+
+    // 📒 Journal: a "journal <id>" header naming the rating_journal_progress row, then one line per accepted
+    // rating (sequence, book id, stars, accepted at, username)
+
+    private static String format(PendingRating rating) {
+        return rating.sequence + "\t" + rating.bookId + "\t" + rating.stars + "\t" + rating.acceptedAt
+                + "\t" + rating.username;
+    }
+
+    // Replaces the journal with the header and the given records: written and synced to a temporary file first,
+    // then moved over the journal, so a crash leaves either the old or the new file. Callers hold the lock or
+    // run before any rating is accepted
+    private void rewriteJournal(List<PendingRating> records) throws IOException {
+        Path rewritten = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        StringBuilder content = new StringBuilder(JOURNAL).append('\t').append(journalId).append('\n');
+        for (PendingRating rating : records) {
+            content.append(format(rating)).append('\n');
+        }
+        try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(rewritten, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        FileChannel previous = journal;
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    private void append(String line) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the rating journal", e);
+        }
+    }
+
+    private void force() {
+        try {
+            journal.force(false);
+        } catch (ClosedChannelException e) {
+            // Compacted meanwhile: the rewritten journal holding this rating was synced before it replaced the old
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync the rating journal", e);
+        }
+    }
+
+    private List<PendingRating> readJournal() throws IOException {
+        Map<Long, PendingRating> pending = new LinkedHashMap<>();
+        if (!Files.exists(journalPath)) {
+            return new ArrayList<>();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 5);
+                try {
+                    if (fields.length == 2 && fields[0].equals(JOURNAL)) {
+                        journalId = fields[1];
+                    } else if (fields.length == 2 && fields[0].equals(APPLIED)) {
+                        long applied = Long.parseLong(fields[1]);
+                        pending.keySet().removeIf(sequence -> sequence <= applied);
+                        appliedSequence = Math.max(appliedSequence, applied);
+                        lastSequence = Math.max(lastSequence, applied);
+                    } else if (fields.length == 5) {
+                        PendingRating rating = new PendingRating(Long.parseLong(fields[0]), fields[4],
+                                Long.parseLong(fields[1]), Integer.parseInt(fields[2]), LocalDateTime.parse(fields[3]));
+                        pending.put(rating.sequence, rating);
+                        lastSequence = Math.max(lastSequence, rating.sequence);
+                    } else {
+                        throw new IllegalArgumentException("unexpected field count");
+                    }
+                } catch (RuntimeException e) {
+                    // A line cut short by a crash was never acknowledged
+                    log.warn("Skipping unreadable rating journal line: {}", line);
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingRating {
+        private final long sequence;
+        private final String username;
+        private final long bookId;
+        private final int stars;
+        private final LocalDateTime acceptedAt;
+    }
+}
@@ -1,20 +1,25 @@
 package com.example.book_review.services;
 
 import com.example.book_review.dto.*;
-import com.example.book_review.models.Book;
 import com.example.book_review.models.Reviews;
-import com.example.book_review.models.User;
 import com.example.book_review.repository.BookRepository;
 import com.example.book_review.repository.ReviewRepository;
 import com.example.book_review.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,41 +35,63 @@ public class ReviewService {
     private BookRepository bookRepo;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private SequenceIdAllocator idAllocator;
 
     public Page<ReviewSummaryDTO> getAllReviews(Pageable pageable) {
         Page<Reviews> reviews = reviewRepo.findAll(pageable);
         return reviews.map(this::mapToReviewSummary);
     }
 
+    // Keyset pagination on (createdAt, id): every slice costs the same as the first, whatever its depth
+    public CursorPage<ReviewSummaryDTO> getReviewFeed(String cursor, Integer size) {
+        int limit = FeedCursor.limit(size);
+        // One extra row tells whether another slice follows
+        List<ReviewSummaryDTO> rows;
+        if (cursor == null) {
+            rows = reviewRepo.findFeed(Limit.of(limit + 1));
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            rows = reviewRepo.findFeedAfter(after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        }
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ReviewSummaryDTO> content = rows.subList(0, limit);
+        ReviewSummaryDTO last = content.get(limit - 1);
+        return new CursorPage<>(content, new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
     public ReviewResponseDTO getReviewById(Long id) {
-        Reviews review = reviewRepo.findById(id.intValue())
+        Reviews review = reviewRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Review not found"));
         return mapToReviewResponse(review);
     }
 
+    @Transactional
     public ReviewResponseDTO createReview(ReviewCreateDTO dto, String username) {
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        Book book = bookRepo.findById(dto.getBookId())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found"));
-
-        if (reviewRepo.existsByUserAndBook(user, book)) {
-            throw new IllegalArgumentException("You have already reviewed this book");
-        }
-
-        Reviews review = new Reviews();
-        review.setComment(dto.getComment());
-        review.setUser(user);
-        review.setBook(book);
-
-        Reviews saved = reviewRepo.save(review);
+        // A single insert guarded by the unique (user_id, book_id) index; the lookups below only run to explain
+        // why nothing was inserted
+        Reviews saved = reviewRepo.insertIfAbsent(idAllocator.nextId("review_seq"), username, dto.getBookId(),
+                        dto.getComment(), LocalDateTime.now())
+                .orElseThrow(() -> {
+                    if (!userRepo.existsByUsername(username)) {
+                        return new EntityNotFoundException("User not found");
+                    }
+                    if (!bookRepo.existsById(dto.getBookId())) {
+                        return new EntityNotFoundException("Book not found");
+                    }
+                    return new IllegalArgumentException("You have already reviewed this book");
+                });
+        // Book responses carry the review count
+        catalogCache.evictBook(dto.getBookId());
         return mapToReviewResponse(saved);
     }
 
     public ReviewResponseDTO updateReview(Long id, ReviewUpdateDTO dto, String username) {
-        Reviews review = reviewRepo.findById(id.intValue())
+        Reviews review = reviewRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Review not found"));
 
         if (!review.getUser().getUsername().equals(username)) {
@@ -72,12 +99,12 @@ public class ReviewService {
         }
 
         review.setComment(dto.getComment());
-        Reviews updated = reviewRepo.save(review);
+        Reviews updated = reviewRepo.saveAndFlush(review);
         return mapToReviewResponse(updated);
     }
 
     public void deleteReview(Long id, String username) {
-        Reviews review = reviewRepo.findById(id.intValue())
+        Reviews review = reviewRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Review not found"));
 
         if (!review.getUser().getUsername().equals(username)) {
@@ -85,44 +112,49 @@ public class ReviewService {
         }
 
         reviewRepo.delete(review);
+        catalogCache.evictBook(review.getBook().getId());
     }
 
-    public List<ReviewSummaryDTO> getReviewsByBook(Long bookId) {
-        Book book = bookRepo.findById(bookId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found"));
-
-        return reviewRepo.findByBookOrderByCreatedAtDesc(book).stream()
-                .map(this::mapToReviewSummary)
-                .collect(Collectors.toList());
+    public Page<ReviewSummaryDTO> getReviewsByBook(Long bookId, Pageable pageable) {
+        if (!bookRepo.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found");
+        }
+        return reviewRepo.findSummariesByBookId(bookId, pageable);
     }
 
-    public List<ReviewSummaryDTO> getReviewsByUser(Long userId) {
-        User user = userRepo.findById(userId.intValue())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        return reviewRepo.findByUserOrderByCreatedAtDesc(user).stream()
-                .map(this::mapToReviewSummary)
-                .collect(Collectors.toList());
+    public Page<ReviewSummaryDTO> getReviewsByUser(Long userId, Pageable pageable) {
+        if (!userRepo.existsById(userId)) {
+            throw new EntityNotFoundException("User not found");
+        }
+        return reviewRepo.findSummariesByUserId(userId, pageable);
     }
 
-    public List<ReviewSummaryDTO> getReviewsByUsername(String username) {
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        return reviewRepo.findByUserOrderByCreatedAtDesc(user).stream()
-                .map(this::mapToReviewSummary)
-                .collect(Collectors.toList());
+    public Page<ReviewSummaryDTO> getReviewsByUsername(String username, Pageable pageable) {
+        return reviewRepo.findSummariesByUsername(username, pageable);
     }
 
-    public List<ReviewSummaryDTO> searchReviews(String query) {
-        List<Reviews> reviews = reviewRepo.findByCommentContainingIgnoreCase(query);
-        return reviews.stream()
-                .map(this::mapToReviewSummary)
+    public Page<ReviewSummaryDTO> searchReviews(String query, Pageable pageable) {
+        // Ranking defines the order, so any requested sort is ignored
+        Page<Long> ids = reviewRepo.searchIdsByComment(query,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        Map<Long, ReviewSummaryDTO> summaries = ids.isEmpty() ? Map.of()
+                : reviewRepo.findSummariesByIdIn(ids.getContent()).stream()
+                        .collect(Collectors.toMap(ReviewSummaryDTO::getId, Function.identity()));
+        // A ranked row deleted between the two queries has no summary: leave it out rather than return null
+        List<ReviewSummaryDTO> content = ids.getContent().stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
     }
 
-    private ReviewResponseDTO mapToReviewResponse(Reviews review) {
-        ReviewResponseDTO dto = modelMapper.map(review, ReviewResponseDTO.class);
+    // Package-private for ServiceMappingBenchmark and ResponseMappingTest
+    ReviewResponseDTO mapToReviewResponse(Reviews review) {
+        ReviewResponseDTO dto = new ReviewResponseDTO();
+        dto.setId(review.getId());
+        dto.setComment(review.getComment());
+        dto.setCreatedAt(review.getCreatedAt());
+        dto.setUpdatedAt(review.getUpdatedAt());
 
         UserSummaryDTO userDTO = new UserSummaryDTO(
                 review.getUser().getId(),
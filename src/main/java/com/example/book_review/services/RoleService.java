@@ -1,14 +1,17 @@
 package com.example.book_review.services;
 
+import com.example.book_review.config.JwtRevocationRegistry;
 import com.example.book_review.dto.*;
 import com.example.book_review.models.Roles;
 import com.example.book_review.repository.RoleRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,7 +23,10 @@ public class RoleService {
     private RoleRepository roleRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtRevocationRegistry revocationRegistry;
 
     public RoleResponseDTO createRole(RoleCreateUpdateDTO dto) {
         if (roleRepository.existsByName(dto.getName())) {
@@ -48,17 +54,18 @@ public class RoleService {
     }
 
     public RoleResponseDTO getRoleById(Long id) {
-        Roles role = roleRepository.findById(id.intValue())
+        Roles role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found with id: " + id));
         return mapToRoleResponse(role);
     }
 
+    @Transactional
     public RoleResponseDTO updateRole(Long id, RoleCreateUpdateDTO dto) {
-        Roles existingRole = roleRepository.findById(id.intValue())
+        Roles existingRole = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found with id: " + id));
 
-        if (!existingRole.getName().equals(dto.getName()) &&
-                roleRepository.existsByName(dto.getName())) {
+        boolean renamed = !existingRole.getName().equals(dto.getName());
+        if (renamed && roleRepository.existsByName(dto.getName())) {
             throw new IllegalArgumentException("Role name already exists");
         }
 
@@ -66,11 +73,22 @@ public class RoleService {
         existingRole.setDescription(dto.getDescription());
 
         Roles updatedRole = roleRepository.save(existingRole);
+        // Cached users and issued tokens carry the role name as their authority. The revocation commits with
+        // the rename; cached users are dropped once it has
+        if (renamed) {
+            revocationRegistry.revokeAll();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userDetailsService.evictAll();
+                }
+            });
+        }
         return mapToRoleResponse(updatedRole);
     }
 
     public void deleteRole(Long id) {
-        Roles role = roleRepository.findById(id.intValue())
+        Roles role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found with id: " + id));
 
         if (!role.getUsers().isEmpty()) {
@@ -89,7 +107,7 @@ public class RoleService {
     }
 
     public List<UserSummaryDTO> getUsersByRole(Long id) {
-        Roles role = roleRepository.findById(id.intValue())
+        Roles role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found"));
 
         return role.getUsers().stream()
@@ -97,8 +115,9 @@ public class RoleService {
                 .collect(Collectors.toList());
     }
 
-    private RoleResponseDTO mapToRoleResponse(Roles role) {
-        return modelMapper.map(role, RoleResponseDTO.class);
+    // Package-private for ResponseMappingTest
+    RoleResponseDTO mapToRoleResponse(Roles role) {
+        return new RoleResponseDTO(role.getId(), role.getName(), role.getDescription());
     }
 
     private RoleSummaryDTO mapToRoleSummary(Roles role) {
@@ -0,0 +1,63 @@
+package com.example.book_review.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hands out entity ids to native/JDBC writers (bulk import, rating and review upserts) from the same pooled
+// sequences Hibernate uses. Every entity's generator has allocationSize 50, and each nextval on its sequence
+// reserves the block (value - 49 .. value), so ids taken here and by Hibernate never collide. Like Hibernate's
+// pooled optimizer, the unused rest of a block is kept for the next call.
+@Component
+public class SequenceIdAllocator {
+
+    private static final int BLOCK_SIZE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Per sequence: the next unused id and the end of its block
+    private final Map<String, long[]> openBlocks = new HashMap<>();
+
+    // Guards openBlocks across the nextval round trip. A lock rather than synchronized, so a virtual thread
+    // waiting on the database unmounts from its carrier instead of pinning it
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public long nextId(String sequence) {
+        return allocate(sequence, 1).get(0);
+    }
+
+    public List<Long> allocate(String sequence, int count) {
+        lock.lock();
+        try {
+            List<Long> ids = new ArrayList<>(count);
+            long[] block = openBlocks.get(sequence);
+            while (block != null && block[0] <= block[1] && ids.size() < count) {
+                ids.add(block[0]++);
+            }
+            if (ids.size() == count) {
+                return ids;
+            }
+            int blocks = (count - ids.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            List<Long> blockEnds = jdbcTemplate.queryForList(
+                    "SELECT nextval(?::regclass) FROM generate_series(1, ?)", Long.class, sequence, blocks);
+            for (long end : blockEnds) {
+                // The very first value of a fresh sequence is 1; Hibernate treats it the same way
+                long id = Math.max(end - BLOCK_SIZE + 1, 1);
+                while (id <= end && ids.size() < count) {
+                    ids.add(id++);
+                }
+                openBlocks.put(sequence, new long[]{id, end});
+            }
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.book_review.services;
 
+import com.example.book_review.config.JwtRevocationRegistry;
 import com.example.book_review.config.JwtUtil;
 import com.example.book_review.dto.*;
 import com.example.book_review.models.Roles;
 import com.example.book_review.models.User;
+import com.example.book_review.repository.BookRepository;
+import com.example.book_review.repository.RatingRepository;
+import com.example.book_review.repository.ReviewRepository;
 import com.example.book_review.repository.RoleRepository;
 import com.example.book_review.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,6 +20,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -25,10 +29,15 @@ public class UserService {
 
     @Autowired private UserRepository userRepo;
     @Autowired private RoleRepository roleRepo;
-    @Autowired private ModelMapper modelMapper;
+    @Autowired private RatingRepository ratingRepo;
+    @Autowired private ReviewRepository reviewRepo;
+    @Autowired private BookRepository bookRepo;
     @Autowired private PasswordEncoder passwordEncoder;
     @Autowired private JwtUtil jwtUtil;
     @Autowired private AuthenticationManager authenticationManager;
+    @Autowired private CustomUserDetailsService userDetailsService;
+    @Autowired private JwtRevocationRegistry revocationRegistry;
+    @Autowired private CatalogCache catalogCache;
 
     public UserResponseDTO register(UserRegistrationDTO dto) {
         if (userRepo.existsByUsername(dto.getUsername())) {
@@ -77,7 +86,7 @@ public class UserService {
 
             // Generate JWT token
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String token = jwtUtil.generateToken(userDetails);
+            String token = jwtUtil.generateToken(userDetails, user.getId(), user.getTokenVersion());
 
             return new JwtResponseDTO(token, user.getUsername(), user.getEmail(), user.getRole().getName());
 
@@ -113,19 +122,31 @@ public class UserService {
     }
 
     public UserResponseDTO getUserById(Long id) {
-        User user = userRepo.findById(id.intValue())
+        User user = userRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         return mapToUserResponse(user);
     }
 
+    @Transactional
     public void deleteUser(Long id) {
-        User user = userRepo.findById(id.intValue())
+        User user = userRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        // The user's ratings are removed by cascade, so refresh the aggregates of the books they rated
+        List<Long> ratedBookIds = ratingRepo.findRatedBookIdsByUser(user);
+        catalogCache.evictBooks(ratedBookIds);
+        catalogCache.evictBooks(reviewRepo.findReviewedBookIdsByUser(user));
         userRepo.delete(user);
+        userDetailsService.evict(user.getUsername());
+        revocationRegistry.evict(user.getUsername());
+        if (!ratedBookIds.isEmpty()) {
+            userRepo.flush();
+            bookRepo.rebuildRatingStats(ratedBookIds);
+        }
     }
 
     public UserResponseDTO updateUserRoles(Long id, RoleCreateUpdateDTO roleDTO) {
-        User user = userRepo.findById(id.intValue())
+        User user = userRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
         Roles role = roleRepo.findByName(roleDTO.getName())
@@ -133,11 +154,17 @@ public class UserService {
 
         user.setRole(role);
         User updated = userRepo.save(user);
+        userDetailsService.evict(updated.getUsername());
+        revocationRegistry.revoke(updated.getUsername());
         return mapToUserResponse(updated);
     }
 
-    private UserResponseDTO mapToUserResponse(User user) {
-        UserResponseDTO dto = modelMapper.map(user, UserResponseDTO.class);
+    // Package-private for ResponseMappingTest
+    UserResponseDTO mapToUserResponse(User user) {
+        UserResponseDTO dto = new UserResponseDTO();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        dto.setEmail(user.getEmail());
 
         RoleSummaryDTO roleDTO = new RoleSummaryDTO(
                 user.getRole().getId(),
@@ -0,0 +1,125 @@
+-- Runs after Hibernate's ddl-auto (spring.jpa.defer-datasource-initialization=true) on every startup; every statement
+-- must be idempotent, and one-time migrations are guarded so they do no work once applied. The script is sent as a
+-- single statement (spring.sql.init.separator) so DO blocks can use dollar quoting.
+
+-- Ids come from pooled sequences (allocationSize 50) instead of identity columns, so Hibernate can batch inserts.
+-- Tables created before the switch still carry int identity columns: drop the identity, widen ids and foreign
+-- keys to bigint, and move each sequence past the ids already in use. Each ALTER rewrites and locks its table,
+-- so the migration only runs while an identity or non-bigint id column is left.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema()
+                 AND table_name IN ('author', 'book', 'genre', 'role', 'users', 'review', 'rating',
+                                    'book_author', 'book_genre')
+                 AND column_name IN ('id', 'role_id', 'book_id', 'user_id', 'author_id', 'genre_id')
+                 AND (is_identity = 'YES' OR data_type <> 'bigint')) THEN
+        ALTER TABLE author ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id TYPE bigint;
+        ALTER TABLE book ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id TYPE bigint;
+        ALTER TABLE genre ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id TYPE bigint;
+        ALTER TABLE role ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id TYPE bigint;
+        ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id TYPE bigint,
+            ALTER COLUMN role_id TYPE bigint;
+        ALTER TABLE review ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id TYPE bigint,
+            ALTER COLUMN book_id TYPE bigint, ALTER COLUMN user_id TYPE bigint;
+        ALTER TABLE rating ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id TYPE bigint,
+            ALTER COLUMN book_id TYPE bigint, ALTER COLUMN user_id TYPE bigint;
+        ALTER TABLE book_author ALTER COLUMN book_id TYPE bigint, ALTER COLUMN author_id TYPE bigint;
+        ALTER TABLE book_genre ALTER COLUMN book_id TYPE bigint, ALTER COLUMN genre_id TYPE bigint;
+        PERFORM setval('author_seq', (SELECT MAX(id) FROM author)) WHERE (SELECT MAX(id) FROM author) >= (SELECT last_value FROM author_seq);
+        PERFORM setval('book_seq', (SELECT MAX(id) FROM book)) WHERE (SELECT MAX(id) FROM book) >= (SELECT last_value FROM book_seq);
+        PERFORM setval('genre_seq', (SELECT MAX(id) FROM genre)) WHERE (SELECT MAX(id) FROM genre) >= (SELECT last_value FROM genre_seq);
+        PERFORM setval('role_seq', (SELECT MAX(id) FROM role)) WHERE (SELECT MAX(id) FROM role) >= (SELECT last_value FROM role_seq);
+        PERFORM setval('users_seq', (SELECT MAX(id) FROM users)) WHERE (SELECT MAX(id) FROM users) >= (SELECT last_value FROM users_seq);
+        PERFORM setval('review_seq', (SELECT MAX(id) FROM review)) WHERE (SELECT MAX(id) FROM review) >= (SELECT last_value FROM review_seq);
+        PERFORM setval('rating_seq', (SELECT MAX(id) FROM rating)) WHERE (SELECT MAX(id) FROM rating) >= (SELECT last_value FROM rating_seq);
+    END IF;
+END $$;
+
+-- Stateless JWT revocation moved from a revocation instant to users.token_version; drop the old column once
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'users'
+                 AND column_name = 'tokens_revoked_at') THEN
+        ALTER TABLE users DROP COLUMN tokens_revoked_at;
+    END IF;
+END $$;
+
+-- Full-text search document for books, maintained by BookRepository.refreshSearchVectors
+ALTER TABLE book ADD COLUMN IF NOT EXISTS search_vector tsvector;
+CREATE INDEX IF NOT EXISTS idx_book_search_vector ON book USING GIN (search_vector);
+UPDATE book b SET search_vector =
+        setweight(to_tsvector('english', COALESCE(b.title, '')), 'A')
+        || setweight(to_tsvector('english', COALESCE((SELECT string_agg(a.name, ' ')
+                FROM book_author ba JOIN author a ON a.id = ba.author_id
+                WHERE ba.book_id = b.id), '')), 'B')
+        || setweight(to_tsvector('english', COALESCE(b.description, '')), 'C')
+    WHERE b.search_vector IS NULL;
+
+-- Full-text search over review comments; a stored generated column keeps itself in sync
+ALTER TABLE review ADD COLUMN IF NOT EXISTS comment_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', COALESCE(comment, ''))) STORED;
+CREATE INDEX IF NOT EXISTS idx_review_comment_vector ON review USING GIN (comment_vector);
+
+-- Keyset pagination of the review and rating feeds on (created_at DESC, id DESC)
+CREATE INDEX IF NOT EXISTS idx_review_created_at_id ON review (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_rating_created_at_id ON rating (created_at DESC, id DESC);
+
+-- One rating per user and book (rating creation upserts on it). Older duplicates left by the old
+-- read-then-insert path are dropped first, and their stars are taken back out of the book aggregates.
+-- Once the index exists no duplicates can appear, so the cleanup only runs together with its creation.
+DO $$
+BEGIN
+    IF to_regclass('uk_rating_user_book') IS NULL THEN
+        WITH removed AS (
+            DELETE FROM rating r USING rating newer
+            WHERE newer.user_id = r.user_id AND newer.book_id = r.book_id AND newer.id > r.id
+            RETURNING r.book_id, r.stars
+        )
+        UPDATE book b SET
+            rating_count = b.rating_count - d.cnt,
+            rating_sum = b.rating_sum - d.total,
+            one_star_count = b.one_star_count - d.s1,
+            two_star_count = b.two_star_count - d.s2,
+            three_star_count = b.three_star_count - d.s3,
+            four_star_count = b.four_star_count - d.s4,
+            five_star_count = b.five_star_count - d.s5
+        FROM (SELECT book_id, COUNT(*) AS cnt, SUM(stars) AS total,
+                  COUNT(*) FILTER (WHERE stars = 1) AS s1, COUNT(*) FILTER (WHERE stars = 2) AS s2,
+                  COUNT(*) FILTER (WHERE stars = 3) AS s3, COUNT(*) FILTER (WHERE stars = 4) AS s4,
+                  COUNT(*) FILTER (WHERE stars = 5) AS s5
+              FROM removed GROUP BY book_id) d
+        WHERE b.id = d.book_id;
+        CREATE UNIQUE INDEX uk_rating_user_book ON rating (user_id, book_id);
+    END IF;
+END $$;
+
+-- One review per user and book (review creation inserts with ON CONFLICT DO NOTHING); the newest duplicate stays
+DO $$
+BEGIN
+    IF to_regclass('uk_review_user_book') IS NULL THEN
+        DELETE FROM review r USING review newer
+        WHERE newer.user_id = r.user_id AND newer.book_id = r.book_id AND newer.id > r.id;
+        CREATE UNIQUE INDEX uk_review_user_book ON review (user_id, book_id);
+    END IF;
+END $$;
+
+-- Book counters of authors and genres, maintained by BookCounters; the indexes serve the most-books orderings as
+-- range scans. Existing rows are counted once, when the index is created; later drift is repaired on demand by
+-- POST /api/books/book-counts/rebuild rather than silently on every startup.
+DO $$
+BEGIN
+    IF to_regclass('idx_author_book_count') IS NULL THEN
+        UPDATE author a SET book_count = c.cnt
+        FROM (SELECT x.id, (SELECT COUNT(*) FROM book_author ba WHERE ba.author_id = x.id) AS cnt FROM author x) c
+        WHERE a.id = c.id AND a.book_count <> c.cnt;
+        CREATE INDEX idx_author_book_count ON author (book_count DESC, id);
+    END IF;
+    IF to_regclass('idx_genre_book_count') IS NULL THEN
+        UPDATE genre g SET book_count = c.cnt
+        FROM (SELECT x.id, (SELECT COUNT(*) FROM book_genre bg WHERE bg.genre_id = x.id) AS cnt FROM genre x) c
+        WHERE g.id = c.id AND g.book_count <> c.cnt;
+        CREATE INDEX idx_genre_book_count ON genre (book_count DESC, id);
+    END IF;
+END $$;
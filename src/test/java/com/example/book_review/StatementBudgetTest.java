@@ -0,0 +1,410 @@
+package com.example.book_review;
+
+import com.example.book_review.config.SqlStatementCounter;
+import com.example.book_review.config.StatementMetricsFilter;
+import com.example.book_review.dto.*;
+import com.example.book_review.models.Roles;
+import com.example.book_review.repository.BookRepository;
+import com.example.book_review.repository.RoleRepository;
+import com.example.book_review.services.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// SQL statements each endpoint may prepare, measured by StatementMetricsFilter against a catalog big enough
+// for per-row lazy loading to show up (10 books with 2 authors, 2 genres, 5 ratings and 5 reviews each).
+// A budget going up means a new query or an N+1; lower it when an endpoint gets cheaper. Cases run in
+// order on one context, so caches warmed by earlier requests are part of the measurement.
+@SpringBootTest(properties = {
+        "metrics.statements.budget=60",
+        "metrics.statements.budget-exceeded=fail",
+        "spring.jpa.show-sql=false",
+        "leaderboard.refresh-interval=1h"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementBudgetTest {
+
+    private static final int BOOKS = 10;
+    private static final int READERS = 5;
+
+    private static final EmbeddedPostgres postgres = startPostgres();
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private GenreService genreService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    private final List<Long> bookIds = new ArrayList<>();
+    private long authorId;
+    private long genreId;
+    private long userRoleId;
+    private long readerId;
+    private long ratingId;
+    private long reviewId;
+    private String adminToken;
+    private String readerToken;
+    private int created;
+
+    @BeforeAll
+    void seedCatalog() {
+        for (String name : List.of("USER", "AUTHOR", "ADMIN")) {
+            Roles role = new Roles();
+            role.setName(name);
+            role.setDescription(name + " role");
+            roleRepository.save(role);
+        }
+        userRoleId = roleRepository.findByName("USER").orElseThrow().getId();
+        userService.register(new UserRegistrationDTO("admin", "admin@example.com", "password", "ADMIN"));
+        for (int r = 0; r < READERS; r++) {
+            UserResponseDTO reader = userService.register(
+                    new UserRegistrationDTO("reader" + r, "reader" + r + "@example.com", "password", "USER"));
+            if (r == 0) {
+                readerId = reader.getId();
+            }
+        }
+
+        List<Long> authorIds = new ArrayList<>();
+        List<Long> genreIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            authorIds.add(authorService.createAuthor(
+                    new AuthorCreateUpdateDTO("Author " + i, "Bio", "Nowhere", null)).getId());
+            genreIds.add(genreService.createGenre(new GenreCreateUpdateDTO("Genre " + i, "Description")).getId());
+        }
+        authorId = authorIds.get(0);
+        genreId = genreIds.get(0);
+
+        for (int b = 0; b < BOOKS; b++) {
+            bookIds.add(bookService.createBook(new BookCreateUpdateDTO("Book " + b, "A book about things", 10 + b,
+                    LocalDate.of(2020, 1, 1), List.of(genreIds.get(b % 3), genreIds.get((b + 1) % 3)),
+                    List.of(authorIds.get(b % 3), authorIds.get((b + 1) % 3)))).getId());
+        }
+        for (int r = 0; r < READERS; r++) {
+            String reader = "reader" + r;
+            int stars = 1 + r % 5;
+            for (long bookId : bookIds) {
+                long rating = inTransaction(() ->
+                        ratingService.createRating(new RatingCreateUpdateDTO(stars, bookId), reader).getId());
+                long review = inTransaction(() ->
+                        reviewService.createReview(new ReviewCreateDTO("Thoughts of " + reader, bookId), reader).getId());
+                if (r == 0 && bookId == bookIds.get(0)) {
+                    ratingId = rating;
+                    reviewId = review;
+                }
+            }
+        }
+        leaderboardService.refresh();
+
+        adminToken = userService.login(new UserLoginDTO("admin", "password")).getToken();
+        readerToken = userService.login(new UserLoginDTO("reader0", "password")).getToken();
+    }
+
+    @AfterAll
+    void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    // Budgets are the statement counts measured against the seeded catalog; lower one whenever an endpoint gets
+    // cheaper. Reads of single entities load their associations through entity graphs, so none grows with the
+    // number of linked books, authors or genres.
+    Stream<Arguments> endpoints() {
+        long book = bookIds.get(0);
+        return Stream.of(
+                // Books
+                budget("GET /api/books", 1, () -> get("/api/books")),
+                budget("GET /api/books/{id}", 3, () -> get("/api/books/{id}", book)),
+                budget("GET /api/books/{id} (cached)", 1, () -> get("/api/books/{id}", book)),
+                budget("GET /api/books/search", 2, () -> get("/api/books/search").param("query", "book")),
+                budget("GET /api/books/author/{authorId}", 2, () -> get("/api/books/author/{id}", authorId)),
+                budget("GET /api/books/author/{authorId}/paged", 2, () -> get("/api/books/author/{id}/paged", authorId)),
+                budget("GET /api/books/genre/{genreId}", 2, () -> get("/api/books/genre/{id}", genreId)),
+                budget("GET /api/books/genre/{genreId}/paged", 2, () -> get("/api/books/genre/{id}/paged", genreId)),
+                budget("GET /api/books/{id}/reviews", 2, () -> get("/api/books/{id}/reviews", book)),
+                budget("GET /api/books/{id}/reviews/paged", 2, () -> get("/api/books/{id}/reviews/paged", book)),
+                budget("GET /api/books/{id}/ratings", 3, () -> get("/api/books/{id}/ratings", book)),
+                budget("GET /api/books/{id}/ratings/paged", 3, () -> get("/api/books/{id}/ratings/paged", book)),
+                budget("POST /api/books", 11, () -> admin(post("/api/books")).contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new BookCreateUpdateDTO("Budget book", "Description", 12,
+                                LocalDate.of(2021, 1, 1), List.of(genreId), List.of(authorId))))),
+                budget("PUT /api/books/{id}", 16, () -> admin(put("/api/books/{id}", book))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new BookCreateUpdateDTO("Book 0", "Edited description", 10,
+                                LocalDate.of(2020, 1, 1), List.of(genreId), List.of(authorId))))),
+                budget("DELETE /api/books/{id}", 13, () -> admin(delete("/api/books/{id}", newBook()))),
+                budget("POST /api/books/import", 5, () -> admin(post("/api/books/import"))
+                        .contentType("text/csv")
+                        .content("title,description,price,publishedDate,authors,genres\n"
+                                + "Imported,Imported book,9,2019-05-01,Author 0,Genre 0\n")),
+                budget("POST /api/books/rating-stats/rebuild", 1, () -> admin(post("/api/books/rating-stats/rebuild"))),
+                budget("POST /api/books/book-counts/rebuild", 2, () -> admin(post("/api/books/book-counts/rebuild"))),
+
+                // Authors
+                budget("GET /api/authors", 1, () -> get("/api/authors")),
+                budget("GET /api/authors/{id}", 3, () -> get("/api/authors/{id}", authorId)),
+                budget("GET /api/authors/search", 1, () -> get("/api/authors/search").param("name", "author")),
+                budget("GET /api/authors/{id}/books", 2, () -> get("/api/authors/{id}/books", authorId)),
+                budget("GET /api/authors/{id}/books/paged", 2, () -> get("/api/authors/{id}/books/paged", authorId)),
+                budget("POST /api/authors", 1, () -> admin(post("/api/authors")).contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new AuthorCreateUpdateDTO("New author", "Bio", "Here", null)))),
+                budget("PUT /api/authors/{id}", 12, () -> admin(put("/api/authors/{id}", authorId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new AuthorCreateUpdateDTO("Author 0", "New bio", "Nowhere", null)))),
+                budget("DELETE /api/authors/{id}", 3, () -> admin(delete("/api/authors/{id}", newAuthor()))),
+
+                // Genres
+                budget("GET /api/genres", 2, () -> get("/api/genres")),
+                budget("GET /api/genres/{id}", 1, () -> get("/api/genres/{id}", genreId)),
+                budget("GET /api/genres/search", 1, () -> get("/api/genres/search").param("name", "genre")),
+                budget("GET /api/genres/{id}/books", 2, () -> get("/api/genres/{id}/books", genreId)),
+                budget("GET /api/genres/{id}/books/paged", 2, () -> get("/api/genres/{id}/books/paged", genreId)),
+                budget("POST /api/genres", 2, () -> admin(post("/api/genres")).contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new GenreCreateUpdateDTO("New genre", "Description")))),
+                budget("PUT /api/genres/{id}", 5, () -> admin(put("/api/genres/{id}", genreId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new GenreCreateUpdateDTO("Genre 0", "New description")))),
+                budget("DELETE /api/genres/{id}", 2, () -> admin(delete("/api/genres/{id}", newGenre()))),
+
+                // Ratings
+                budget("GET /api/ratings", 3, () -> get("/api/ratings")),
+                budget("GET /api/ratings/feed", 1, () -> get("/api/ratings/feed")),
+                budget("GET /api/ratings/{id}", 4, () -> get("/api/ratings/{id}", ratingId)),
+                budget("GET /api/ratings/book/{bookId}", 2, () -> get("/api/ratings/book/{id}", book)),
+                budget("GET /api/ratings/book/{bookId}/paged", 2, () -> get("/api/ratings/book/{id}/paged", book)),
+                budget("GET /api/ratings/book/{bookId}/average", 1, () -> get("/api/ratings/book/{id}/average", book)),
+                budget("GET /api/ratings/user/{userId}", 3, () -> get("/api/ratings/user/{id}", readerId)),
+                budget("GET /api/ratings/user/{userId}/paged", 3, () -> get("/api/ratings/user/{id}/paged", readerId)),
+                budget("GET /api/ratings/my-ratings", 2, () -> reader(get("/api/ratings/my-ratings"))),
+                budget("GET /api/ratings/my-ratings/paged", 2, () -> reader(get("/api/ratings/my-ratings/paged"))),
+                budget("GET /api/ratings/book/{bookId}/user", 4, () -> reader(get("/api/ratings/book/{id}/user", book))),
+                budget("POST /api/ratings", 5, () -> reader(post("/api/ratings")).contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new RatingCreateUpdateDTO(4, bookIds.get(1))))),
+                budget("PUT /api/ratings/{id}", 8, () -> reader(put("/api/ratings/{id}", ratingId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new RatingCreateUpdateDTO(2, book)))),
+                budget("DELETE /api/ratings/{id}", 5, () -> admin(delete("/api/ratings/{id}", newRating()))),
+
+                // Reviews
+                budget("GET /api/reviews", 3, () -> get("/api/reviews")),
+                budget("GET /api/reviews/feed", 1, () -> get("/api/reviews/feed")),
+                budget("GET /api/reviews/{id}", 4, () -> get("/api/reviews/{id}", reviewId)),
+                budget("GET /api/reviews/book/{bookId}", 2, () -> get("/api/reviews/book/{id}", book)),
+                budget("GET /api/reviews/book/{bookId}/paged", 2, () -> get("/api/reviews/book/{id}/paged", book)),
+                budget("GET /api/reviews/user/{userId}", 3, () -> get("/api/reviews/user/{id}", readerId)),
+                budget("GET /api/reviews/user/{userId}/paged", 3, () -> get("/api/reviews/user/{id}/paged", readerId)),
+                budget("GET /api/reviews/my-reviews", 2, () -> reader(get("/api/reviews/my-reviews"))),
+                budget("GET /api/reviews/my-reviews/paged", 2, () -> reader(get("/api/reviews/my-reviews/paged"))),
+                budget("GET /api/reviews/search", 3, () -> get("/api/reviews/search").param("query", "thoughts")),
+                budget("POST /api/reviews", 5, () -> admin(post("/api/reviews")).contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new ReviewCreateDTO("An admin's view", book)))),
+                budget("PUT /api/reviews/{id}", 5, () -> reader(put("/api/reviews/{id}", reviewId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new ReviewUpdateDTO("Second thoughts")))),
+                budget("DELETE /api/reviews/{id}", 4, () -> admin(delete("/api/reviews/{id}", newReview()))),
+
+                // Roles
+                budget("GET /api/roles", 1, () -> admin(get("/api/roles"))),
+                budget("GET /api/roles/list", 1, () -> admin(get("/api/roles/list"))),
+                budget("GET /api/roles/{id}", 0, () -> admin(get("/api/roles/{id}", userRoleId))),
+                budget("GET /api/roles/search", 1, () -> admin(get("/api/roles/search").param("name", "us"))),
+                budget("GET /api/roles/{id}/users", 1, () -> admin(get("/api/roles/{id}/users", userRoleId))),
+                budget("POST /api/roles", 2, () -> admin(post("/api/roles")).contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new RoleCreateUpdateDTO("EDITOR", "Edits")))),
+                budget("PUT /api/roles/{id}", 1, () -> admin(put("/api/roles/{id}", userRoleId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new RoleCreateUpdateDTO("USER", "Reads and rates books")))),
+                budget("DELETE /api/roles/{id}", 3, () -> admin(delete("/api/roles/{id}", newRole()))),
+
+                // Users
+                budget("POST /api/users/register", 3, () -> post("/api/users/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new UserRegistrationDTO("newcomer", "newcomer@example.com", "password", null)))),
+                budget("POST /api/users/login", 2, () -> post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new UserLoginDTO("reader1", "password")))),
+                budget("GET /api/users/profile", 1, () -> admin(get("/api/users/profile"))),
+                budget("PUT /api/users/profile", 2, () -> admin(put("/api/users/profile"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new UserProfileDTO("admin@example.org", null, null)))),
+                budget("GET /api/users", 1, () -> admin(get("/api/users"))),
+                budget("GET /api/users/{id}", 1, () -> admin(get("/api/users/{id}", readerId))),
+                budget("PUT /api/users/{id}/roles", 2, () -> admin(put("/api/users/{id}/roles", readerId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new RoleCreateUpdateDTO("USER", "Reads and rates books")))),
+                budget("DELETE /api/users/{id}", 9, () -> admin(delete("/api/users/{id}", newUser())))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("endpoints")
+    void staysWithinStatementBudget(String endpoint, int budget, Supplier<MockHttpServletRequestBuilder> request)
+            throws Exception {
+        MvcResult result = mockMvc.perform(request.get()).andReturn();
+
+        assertThat(result.getResponse().getStatus()).as("%s status", endpoint).isLessThan(400);
+        assertThat((Integer) result.getRequest().getAttribute(StatementMetricsFilter.STATEMENT_COUNT_ATTRIBUTE))
+                .as("SQL statements prepared by %s", endpoint)
+                .isLessThanOrEqualTo(budget);
+    }
+
+    // The export streams on an async thread after the request thread has left StatementMetricsFilter, so the
+    // filter cannot see its query. The endpoint is checked end to end, and the body it streams is measured here.
+    @Test
+    void exportStreamsTheCatalogFromOneCursorQuery() throws Exception {
+        MvcResult started = mockMvc.perform(admin(get("/api/books/export")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started)).andReturn();
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        long books = bookRepository.count();
+        assertThat(result.getResponse().getContentAsString().lines()).hasSize((int) books);
+
+        statementCounter.begin();
+        SqlStatementCounter.Counts counts;
+        try {
+            bookService.exportCatalog(new ByteArrayOutputStream());
+        } finally {
+            counts = statementCounter.end();
+        }
+        assertThat(counts.getTotal()).as("SQL statements prepared by the export").isEqualTo(1);
+    }
+
+    private static Arguments budget(String endpoint, int statements, Supplier<MockHttpServletRequestBuilder> request) {
+        return Arguments.of(endpoint, statements, request);
+    }
+
+    private MockHttpServletRequestBuilder admin(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken);
+    }
+
+    private MockHttpServletRequestBuilder reader(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken);
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Fixtures for the delete cases, created outside the measured request
+
+    private long newBook() {
+        return bookService.createBook(new BookCreateUpdateDTO("Doomed " + ++created, "To be deleted", 5,
+                LocalDate.of(2022, 1, 1), List.of(genreId), List.of(authorId))).getId();
+    }
+
+    private long newAuthor() {
+        return authorService.createAuthor(new AuthorCreateUpdateDTO("Doomed " + ++created, "Bio", "Nowhere", null)).getId();
+    }
+
+    private long newGenre() {
+        return genreService.createGenre(new GenreCreateUpdateDTO("Doomed " + ++created, "Description")).getId();
+    }
+
+    private long newRating() {
+        return inTransaction(() -> ratingService.createRating(
+                new RatingCreateUpdateDTO(3, bookIds.get(2)), "admin").getId());
+    }
+
+    private long newReview() {
+        return inTransaction(() -> reviewService.createReview(
+                new ReviewCreateDTO("Doomed review", bookIds.get(3)), "admin").getId());
+    }
+
+    private long newRole() {
+        Roles role = new Roles();
+        role.setName("DOOMED" + ++created);
+        role.setDescription("To be deleted");
+        return roleRepository.save(role).getId();
+    }
+
+    private long newUser() {
+        String name = "doomed" + ++created;
+        long id = userService.register(new UserRegistrationDTO(name, name + "@example.com", "password", null)).getId();
+        inTransaction(() -> ratingService.createRating(new RatingCreateUpdateDTO(5, bookIds.get(4)), name).getId());
+        return id;
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded PostgreSQL", e);
+        }
+    }
+}
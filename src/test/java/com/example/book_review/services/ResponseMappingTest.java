@@ -0,0 +1,126 @@
+package com.example.book_review.services;
+
+import com.example.book_review.dto.*;
+import com.example.book_review.models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The response mappers used to go through a STRICT, field-access ModelMapper; check the hand-written
+// replacements produce exactly what that configuration (plus the old post-processing) produced.
+class ResponseMappingTest {
+
+    private final ModelMapper modelMapper = legacyModelMapper();
+
+    private Roles role;
+    private User user;
+    private Book book;
+    private Genre genre;
+
+    @BeforeEach
+    void setUp() {
+        role = new Roles();
+        role.setId(3);
+        role.setName("AUTHOR");
+        role.setDescription("Writes books");
+
+        user = new User();
+        user.setId(7);
+        user.setUsername("reader");
+        user.setEmail("reader@example.com");
+        user.setPassword("hashed-password");
+        user.setRole(role);
+
+        book = new Book();
+        book.setId(11);
+        book.setTitle("Mapped");
+        book.setDescription("A book");
+        book.setPrice(25);
+        book.setPublishedDate(LocalDate.of(2021, 5, 4));
+
+        Author author = new Author();
+        author.setId(5);
+        author.setName("Writer");
+        author.setNationality("Somewhere");
+        book.addAuthors(author);
+
+        genre = new Genre();
+        genre.setId(2);
+        genre.setName("Mystery");
+        genre.setDescription("Whodunits");
+        book.addGenre(genre);
+    }
+
+    @Test
+    void ratingResponseMatchesModelMapper() {
+        Rating rating = new Rating();
+        rating.setId(1);
+        rating.setStars(4);
+        rating.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        user.addRating(rating);
+        book.addRating(rating);
+
+        RatingResponseDTO expected = modelMapper.map(rating, RatingResponseDTO.class);
+        expected.setUser(new UserSummaryDTO(user.getId(), user.getUsername()));
+        expected.setBook(new BookSummaryDTO(book.getId(), book.getTitle(), book.getAuthor()));
+
+        assertThat(new RatingService().mapToRatingResponse(rating)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void reviewResponseMatchesModelMapper() {
+        Reviews review = new Reviews();
+        review.setId(1);
+        review.setComment("Great");
+        review.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        user.addReview(review);
+        book.addReview(review);
+
+        ReviewResponseDTO expected = modelMapper.map(review, ReviewResponseDTO.class);
+        expected.setUser(new UserSummaryDTO(user.getId(), user.getUsername()));
+        expected.setBook(new BookSummaryDTO(book.getId(), book.getTitle(), book.getAuthor()));
+
+        assertThat(new ReviewService().mapToReviewResponse(review)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void userResponseMatchesModelMapper() {
+        UserResponseDTO expected = modelMapper.map(user, UserResponseDTO.class);
+        expected.setRoles(List.of(new RoleSummaryDTO(role.getId(), role.getName())));
+
+        assertThat(new UserService().mapToUserResponse(user)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void genreResponseMatchesModelMapper() {
+        GenreResponseDTO expected = modelMapper.map(genre, GenreResponseDTO.class);
+        expected.setBookCount(genre.getBooks().size());
+        expected.setBooks(null);
+
+        assertThat(new GenreService().mapToGenreResponse(genre)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void roleResponseMatchesModelMapper() {
+        RoleResponseDTO expected = modelMapper.map(role, RoleResponseDTO.class);
+
+        assertThat(new RoleService().mapToRoleResponse(role)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    // Same configuration the application's ModelMapper bean used to have
+    private static ModelMapper legacyModelMapper() {
+        ModelMapper mapper = new ModelMapper();
+        mapper.getConfiguration()
+                .setMatchingStrategy(MatchingStrategies.STRICT)
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(org.modelmapper.config.Configuration.AccessLevel.PRIVATE);
+        return mapper;
+    }
+}